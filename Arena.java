@@ -0,0 +1,345 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless self-play: two engine configurations play each other through GameServer over
+ * loopback, exactly as they would against the tournament server, many games at a time.
+ * Every game gets its own session: a server socket, a server thread and one reader
+ * thread per player. Games come in pairs that start from the same opening, a few
+ * random plies deep, with the engines swapping colours.
+ *
+ * Prints one line per game, then the score with an Elo estimate, and per engine the
+ * reply latency the server measured (mean, median, 99th percentile, max) and the
+ * search speed in nodes per second.
+ *
+ * Usage: java Arena [games] [parallel] [engineA] [engineB]
+ * An engine is a comma-separated list of options, e.g. "time=200,lmr=off":
+ *   time=MS       per-move limit (default 500; TimeManager keeps 100 of it in reserve)
+ *   depth=N       depth limit, 0 for none (default 0)
+ *   threads=N     search threads (default 1)
+ *   hash=MB       transposition table size (default 16)
+ *   nmp, lmr, futility=on|off   selective search (default on)
+ *   book, tablebase=on|off      opening book and endgame tablebase files (default off)
+ */
+public class Arena {
+    private static final int DEFAULT_GAMES = 100;
+    private static final int MAX_OPENING_MOVES = 2; // Random moves per side before the engines take over
+
+    /**
+     * One engine configuration
+     */
+    static class EngineConfig {
+        final String spec;
+        long moveLimitMs = 500;
+        int depth;
+        int threads = 1;
+        int hashMb = 16;
+        boolean nullMovePruning = true;
+        boolean lateMoveReductions = true;
+        boolean futilityPruning = true;
+        boolean book;
+        boolean tablebase;
+
+        EngineConfig(String spec) {
+            this.spec = spec;
+            for (String option : spec.split(",")) {
+                if (option.isEmpty()) continue;
+                int equals = option.indexOf('=');
+                if (equals < 0) {
+                    throw new IllegalArgumentException("Expected name=value: " + option);
+                }
+                String name = option.substring(0, equals);
+                String value = option.substring(equals + 1);
+                switch (name) {
+                    case "time": moveLimitMs = Long.parseLong(value); break;
+                    case "depth": depth = Integer.parseInt(value); break;
+                    case "threads": threads = Integer.parseInt(value); break;
+                    case "hash": hashMb = Integer.parseInt(value); break;
+                    case "nmp": nullMovePruning = on(value); break;
+                    case "lmr": lateMoveReductions = on(value); break;
+                    case "futility": futilityPruning = on(value); break;
+                    case "book": book = on(value); break;
+                    case "tablebase": tablebase = on(value); break;
+                    default: throw new IllegalArgumentException("Unknown engine option: " + name);
+                }
+            }
+        }
+
+        private static boolean on(String value) {
+            return value.equals("on") || value.equals("true");
+        }
+
+        MiniMax create(OpeningBook openingBook, Tablebase endgames) {
+            MiniMax miniMax = new MiniMax(hashMb);
+            miniMax.setThreads(threads);
+            miniMax.setTimeManager(new TimeManager(TimeManager.UNLIMITED_GAME_TIME, moveLimitMs));
+            miniMax.setDepthLimit(depth);
+            miniMax.setNullMovePruning(nullMovePruning);
+            miniMax.setLateMoveReductions(lateMoveReductions);
+            miniMax.setFutilityPruning(futilityPruning);
+            miniMax.setOpeningBook(book ? openingBook : null);
+            miniMax.setTablebase(tablebase ? endgames : null);
+            return miniMax;
+        }
+    }
+
+    /**
+     * An engine connected to the server like Client, counting its own search work
+     */
+    private static class Player implements ServerProtocol.Listener {
+        private final ServerProtocol protocol;
+        private final MiniMax miniMax;
+        private final Board board = new Board();
+        private String color;
+        long nodes;
+        long searchMs;
+
+        Player(ServerProtocol protocol, MiniMax miniMax) {
+            this.protocol = protocol;
+            this.miniMax = miniMax;
+        }
+
+        @Override
+        public void onNewGame(boolean red, byte[] boardData, int length) throws IOException {
+            color = red ? "red" : "black";
+            miniMax.newGame();
+            board.parseBoardFromServer(boardData, 0, length);
+            board.setRedPlayer(red);
+            if (red) {
+                playMove();
+            }
+        }
+
+        @Override
+        public void onMoveRequest(String opponentMove) throws IOException {
+            board.makeMoveFromServer(opponentMove);
+            playMove();
+        }
+
+        @Override
+        public void onManualMoveRequest(String lastMove) throws IOException {
+            onMoveRequest(lastMove);
+        }
+
+        private void playMove() throws IOException {
+            String move = miniMax.findBestMove(board, color);
+            SearchStats stats = miniMax.getLastSearchStats();
+            nodes += stats.nodes;
+            searchMs += stats.timeMs;
+            if (move != null) {
+                board.makeMoveFromServer(move);
+                protocol.send(move);
+            }
+        }
+    }
+
+    /**
+     * What one game produced, from engine A's side
+     */
+    private static class GameRecord {
+        final int number;
+        final boolean aRed;
+        final GameServer.Result result;
+        final long[] nodes = new long[2]; // [A/B]
+        final long[] searchMs = new long[2];
+
+        GameRecord(int number, boolean aRed, GameServer.Result result) {
+            this.number = number;
+            this.aRed = aRed;
+            this.result = result;
+        }
+
+        // 1 for a win of A, 0.5 for a draw, 0 for a loss
+        double scoreA() {
+            int redScore = result.outcome; // 1, 0 or -1
+            return (1 + (aRed ? redScore : -redScore)) / 2.0;
+        }
+
+        long[] latencies(int engine) {
+            int side = (engine == 0) == aRed ? 0 : 1;
+            return Arrays.copyOf(result.latencyMs[side], result.moves[side]);
+        }
+    }
+
+    /**
+     * Play one game: connect both engines to a fresh loopback server and run it
+     */
+    private static GameRecord playGame(int number, EngineConfig a, EngineConfig b,
+                                       OpeningBook book, Tablebase tablebase) throws Exception {
+        boolean aRed = (number & 1) == 1;
+        Board opening = randomOpening(new SplittableRandom((number + 1) / 2));
+        EngineConfig redConfig = aRed ? a : b;
+        EngineConfig blackConfig = aRed ? b : a;
+        long moveLimitMs = Math.max(a.moveLimitMs, b.moveLimitMs);
+
+        try (ServerSocket server = new ServerSocket(0, 2, InetAddress.getLoopbackAddress())) {
+            // Connect one at a time so the first accepted socket is the red player
+            ServerProtocol redProtocol = ServerProtocol.connect("localhost", server.getLocalPort());
+            Socket red = server.accept();
+            ServerProtocol blackProtocol = ServerProtocol.connect("localhost", server.getLocalPort());
+            Socket black = server.accept();
+
+            Player redPlayer = new Player(redProtocol, redConfig.create(book, tablebase));
+            Player blackPlayer = new Player(blackProtocol, blackConfig.create(book, tablebase));
+            Thread redThread = runPlayer(redProtocol, redPlayer, "arena-" + number + "-red");
+            Thread blackThread = runPlayer(blackProtocol, blackPlayer, "arena-" + number + "-black");
+
+            GameServer.Result result = GameServer.play(red, black, opening, moveLimitMs);
+            redThread.join();
+            blackThread.join();
+
+            GameRecord record = new GameRecord(number, aRed, result);
+            Player playerA = aRed ? redPlayer : blackPlayer;
+            Player playerB = aRed ? blackPlayer : redPlayer;
+            record.nodes[0] = playerA.nodes;
+            record.nodes[1] = playerB.nodes;
+            record.searchMs[0] = playerA.searchMs;
+            record.searchMs[1] = playerB.searchMs;
+            return record;
+        }
+    }
+
+    /**
+     * Play one to MAX_OPENING_MOVES random moves for each side from the start, so the
+     * position has red to move again like the server's board payload expects
+     */
+    static Board randomOpening(SplittableRandom random) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        while (true) {
+            Board board = new Board();
+            int plies = 2 * (1 + random.nextInt(MAX_OPENING_MOVES));
+            for (int ply = 0; ply < plies && !board.isGameOver(); ply++) {
+                int count = MoveGenerator.generate(board, board.isRedToMove(), moves);
+                if (count == 0) break;
+                board.makeMove(moves[random.nextInt(count)]);
+            }
+            if (board.isRedToMove() && !board.isGameOver()) {
+                return board;
+            }
+        }
+    }
+
+    private static Thread runPlayer(ServerProtocol protocol, Player player, String name) {
+        Thread thread = new Thread(() -> {
+            try {
+                protocol.run(player);
+            } catch (IOException e) {
+                // The server closing the connection at the end of the game is expected
+            }
+        }, name);
+        thread.start();
+        return thread;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        int parallel = args.length > 1 ? Integer.parseInt(args[1])
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        EngineConfig a = new EngineConfig(args.length > 2 ? args[2] : "");
+        EngineConfig b = new EngineConfig(args.length > 3 ? args[3] : "");
+
+        OpeningBook book = a.book || b.book ? OpeningBook.load(java.nio.file.Paths.get(OpeningBook.DEFAULT_FILE)) : null;
+        Tablebase tablebase = a.tablebase || b.tablebase ? Tablebase.load(java.nio.file.Paths.get(Tablebase.DEFAULT_FILE)) : null;
+
+        System.out.println("A: " + (a.spec.isEmpty() ? "defaults" : a.spec));
+        System.out.println("B: " + (b.spec.isEmpty() ? "defaults" : b.spec));
+        System.out.println(games + " games, " + parallel + " at a time");
+
+        ExecutorService pool = Executors.newFixedThreadPool(parallel);
+        ExecutorCompletionService<GameRecord> completed = new ExecutorCompletionService<>(pool);
+        for (int game = 1; game <= games; game++) {
+            int number = game;
+            completed.submit(() -> playGame(number, a, b, book, tablebase));
+        }
+
+        List<GameRecord> records = new ArrayList<>(games);
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < games; i++) {
+                Future<GameRecord> future = completed.take();
+                GameRecord record = future.get();
+                records.add(record);
+                System.out.println("game " + record.number + ": A plays " + (record.aRed ? "red" : "black")
+                        + ", " + record.result.describe());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        long wallMs = (System.nanoTime() - start) / 1_000_000;
+
+        printSummary(records, wallMs);
+    }
+
+    private static void printSummary(List<GameRecord> records, long wallMs) {
+        int wins = 0;
+        int draws = 0;
+        int losses = 0;
+        int late = 0;
+        for (GameRecord record : records) {
+            double score = record.scoreA();
+            if (score == 1.0) wins++;
+            else if (score == 0.5) draws++;
+            else losses++;
+            late += record.result.lateMoves;
+        }
+        int games = records.size();
+        double score = games > 0 ? (wins + draws / 2.0) / games : 0.5;
+
+        System.out.println();
+        System.out.println(String.format(Locale.ROOT, "A: +%d =%d -%d  score %.1f%%  Elo %+.0f  (%d games in %.1f s, %d late moves)",
+                wins, draws, losses, 100 * score, elo(score), games, wallMs / 1000.0, late));
+
+        for (int engine = 0; engine < 2; engine++) {
+            long nodes = 0;
+            long searchMs = 0;
+            List<long[]> perGame = new ArrayList<>();
+            int moves = 0;
+            for (GameRecord record : records) {
+                nodes += record.nodes[engine];
+                searchMs += record.searchMs[engine];
+                long[] latencies = record.latencies(engine);
+                perGame.add(latencies);
+                moves += latencies.length;
+            }
+            long[] all = new long[moves];
+            int index = 0;
+            long total = 0;
+            for (long[] latencies : perGame) {
+                for (long ms : latencies) {
+                    all[index++] = ms;
+                    total += ms;
+                }
+            }
+            Arrays.sort(all);
+
+            System.out.println(String.format(Locale.ROOT,
+                    "%s: %d moves, latency mean %.1f ms, p50 %d ms, p99 %d ms, max %d ms; %d nodes/s",
+                    engine == 0 ? "A" : "B", moves, moves > 0 ? (double) total / moves : 0.0,
+                    percentile(all, 50), percentile(all, 99), moves > 0 ? all[moves - 1] : 0,
+                    searchMs > 0 ? nodes * 1000 / searchMs : 0));
+        }
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    // Elo difference for a score fraction, clamped so a clean sweep stays finite
+    private static double elo(double score) {
+        double clamped = Math.min(0.999, Math.max(0.001, score));
+        return -400 * Math.log10(1 / clamped - 1);
+    }
+}
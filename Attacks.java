@@ -0,0 +1,81 @@
+/**
+ * Which squares each side can capture on. Captures are always diagonal: a pusher takes
+ * diagonally forward, and a pushed piece takes when a pusher diagonally behind it pushes
+ * it one more step along the same diagonal. Both are precomputed per square and side,
+ * so a threat query is a few table lookups instead of a scan of the board. The rules are
+ * the ones MoveGenerator.generateCaptures follows.
+ *
+ * Side index 0 is red (moving towards row 0), 1 is black.
+ */
+public class Attacks {
+    /** [side][square]: the squares a pusher on the square attacks */
+    static final long[][] PUSHER_ATTACKS = new long[2][64];
+    /** [side][square]: the squares a pusher on the square can push a diagonal neighbour onto */
+    static final long[][] PUSH_REACH = new long[2][64];
+
+    private static final long NOT_FILE_A = ~Board.FILE_A;
+    private static final long NOT_FILE_H = ~Board.FILE_H;
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            int row = square >> 3;
+            int col = square & 7;
+            for (int side = 0; side < 2; side++) {
+                int forward = side == 0 ? -1 : 1;
+                for (int dc = -1; dc <= 1; dc += 2) {
+                    PUSHER_ATTACKS[side][square] |= bit(row + forward, col + dc);
+                    PUSH_REACH[side][square] |= bit(row + 2 * forward, col + 2 * dc);
+                }
+            }
+        }
+    }
+
+    private static long bit(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8 ? 1L << (row * 8 + col) : 0L;
+    }
+
+    /**
+     * All squares the given side could capture on if an enemy piece stood there
+     */
+    public static long computeAttacks(Board board, boolean red) {
+        long pushers = board.getBitboard(red ? Board.RED_PUSHER : Board.BLACK_PUSHER);
+        long pushed = board.getBitboard(red ? Board.RED_PUSHED : Board.BLACK_PUSHED);
+        if (red) {
+            long pushedRight = pushed & ((pushers & NOT_FILE_H) >>> 7) & NOT_FILE_H;
+            long pushedLeft = pushed & ((pushers & NOT_FILE_A) >>> 9) & NOT_FILE_A;
+            return ((pushers & NOT_FILE_A) >>> 9) | ((pushers & NOT_FILE_H) >>> 7)
+                 | (pushedRight >>> 7) | (pushedLeft >>> 9);
+        } else {
+            long pushedRight = pushed & ((pushers & NOT_FILE_H) << 9) & NOT_FILE_H;
+            long pushedLeft = pushed & ((pushers & NOT_FILE_A) << 7) & NOT_FILE_A;
+            return ((pushers & NOT_FILE_A) << 7) | ((pushers & NOT_FILE_H) << 9)
+                 | (pushedRight << 9) | (pushedLeft << 7);
+        }
+    }
+
+    /**
+     * The pieces of the given side that could capture on a square: pushers attacking it,
+     * and pushed pieces a pusher could push onto it
+     * @param red The attacking side
+     */
+    public static long attackers(Board board, int square, boolean red) {
+        int side = red ? 0 : 1;
+        long pushers = board.getBitboard(red ? Board.RED_PUSHER : Board.BLACK_PUSHER);
+        long pushed = board.getBitboard(red ? Board.RED_PUSHED : Board.BLACK_PUSHED);
+
+        // Looking backwards from the square is looking forwards for the other side
+        long attackers = PUSHER_ATTACKS[side ^ 1][square] & pushers;
+        for (long sources = PUSH_REACH[side ^ 1][square] & pushers; sources != 0; sources &= sources - 1) {
+            int middle = (Long.numberOfTrailingZeros(sources) + square) >> 1;
+            attackers |= pushed & (1L << middle);
+        }
+        return attackers;
+    }
+
+    /**
+     * True if the given side could capture a piece on the square
+     */
+    public static boolean isAttacked(Board board, int square, boolean red) {
+        return attackers(board, square, red) != 0;
+    }
+}
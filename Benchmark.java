@@ -0,0 +1,140 @@
+/**
+ * Micro-benchmarks for the engine's hot paths on a fixed suite of positions.
+ *
+ * Each benchmark is warmed up, then timed over several fixed-length iterations, and
+ * reported as mean time per operation with its spread across iterations. Results are
+ * folded into a sink so the JIT cannot drop the measured work.
+ *
+ * Usage: java Benchmark [name-filter]
+ */
+public class Benchmark {
+    private static final long WARMUP_MS = 2000;
+    private static final long ITERATION_MS = 1000;
+    private static final int ITERATIONS = 5;
+    private static final int SEARCH_DEPTH = 5;
+
+    // Positions in parseBoardFromServer format, with the side to move
+    private static final String[][] POSITIONS = {
+        { "opening", "red",
+          "2 2 2 2 2 2 2 2 1 1 1 1 1 1 1 1 0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 "
+        + "0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 3 3 3 3 3 3 3 3 4 4 4 4 4 4 4 4" },
+        { "midgame", "red",
+          "0 2 2 2 2 0 0 0 0 1 1 1 1 1 0 2 1 0 0 0 0 2 1 1 0 0 0 0 0 0 0 0 "
+        + "0 2 4 0 0 0 0 3 3 3 3 0 0 4 3 4 4 4 0 3 3 0 0 0 0 0 0 4 4 4 0 0" },
+        { "endgame", "black",
+          "0 0 0 0 0 0 0 0 0 0 2 0 0 0 2 0 0 0 1 0 0 2 1 0 0 0 0 0 0 0 0 0 "
+        + "0 0 0 0 0 0 0 0 0 3 4 0 0 0 3 0 0 4 0 0 0 0 4 0 0 0 0 0 0 0 0 0" },
+    };
+
+    private static volatile long sink;
+
+    private interface Operation {
+        long run();
+    }
+
+    public static void main(String[] args) {
+        String filter = args.length > 0 ? args[0] : "";
+
+        for (String[] position : POSITIONS) {
+            String name = position[0];
+            boolean isRed = position[1].equals("red");
+            Board board = new Board();
+            board.parseBoardFromServer(position[2]);
+            board.setRedToMove(isRed);
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int moveCount = MoveGenerator.generate(board, isRed, moves);
+            char[][] charBoard = toCharBoard(board);
+            String color = isRed ? "red" : "black";
+
+            run("generate/" + name, filter, () -> MoveGenerator.generate(board, isRed, moves));
+            run("evaluate/" + name, filter, () -> BoardEvaluation.evaluate(board, isRed));
+            run("evaluateChars/" + name, filter, () -> BoardEvaluation.evaluate(charBoard, color));
+            run("makeUnmake/" + name, filter, () -> {
+                long total = 0;
+                for (int i = 0; i < moveCount; i++) {
+                    long undo = board.makeMove(moves[i]);
+                    total += board.getHash();
+                    board.unmakeMove(undo);
+                }
+                return total;
+            });
+            if (("search/" + name).contains(filter)) {
+                search(name, board, color);
+            }
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+
+    private static void run(String name, String filter, Operation operation) {
+        if (!name.contains(filter)) return;
+
+        long total = 0;
+        long warmupEnd = System.currentTimeMillis() + WARMUP_MS;
+        while (System.currentTimeMillis() < warmupEnd) {
+            for (int i = 0; i < 1000; i++) {
+                total += operation.run();
+            }
+        }
+
+        double[] nanosPerOp = new double[ITERATIONS];
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            long ops = 0;
+            long start = System.nanoTime();
+            long end = start + ITERATION_MS * 1000000;
+            long now;
+            do {
+                for (int i = 0; i < 1000; i++) {
+                    total += operation.run();
+                }
+                ops += 1000;
+                now = System.nanoTime();
+            } while (now < end);
+            nanosPerOp[iteration] = (double) (now - start) / ops;
+        }
+        sink += total;
+        report(name, nanosPerOp, "ns/op");
+    }
+
+    // Fixed-depth single-threaded search from a fresh table, reported as nodes per second
+    private static void search(String name, Board board, String color) {
+        double[] nodesPerSecond = new double[ITERATIONS];
+        for (int iteration = -1; iteration < ITERATIONS; iteration++) {
+            MiniMax miniMax = new MiniMax(16);
+            miniMax.setDepthLimit(SEARCH_DEPTH);
+            long start = System.nanoTime();
+            String move = miniMax.findBestMove(board, color);
+            long elapsed = System.nanoTime() - start;
+            sink += move == null ? 0 : move.hashCode();
+            if (iteration >= 0) {
+                nodesPerSecond[iteration] = miniMax.getLastSearchNodes() * 1e9 / elapsed;
+            }
+        }
+        report("search/" + name + " (depth " + SEARCH_DEPTH + ")", nodesPerSecond, "nodes/s");
+    }
+
+    private static void report(String name, double[] samples, String unit) {
+        double mean = 0;
+        for (double sample : samples) mean += sample;
+        mean /= samples.length;
+        double variance = 0;
+        for (double sample : samples) variance += (sample - mean) * (sample - mean);
+        double stdev = Math.sqrt(variance / samples.length);
+        System.out.printf("%-32s %14.1f +- %8.1f %s%n", name, mean, stdev, unit);
+    }
+
+    private static char[][] toCharBoard(Board board) {
+        char[][] chars = new char[8][8];
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                switch (board.getPiece(row, col)) {
+                    case Board.BLACK_PUSHED: chars[row][col] = 'b'; break;
+                    case Board.BLACK_PUSHER: chars[row][col] = 'B'; break;
+                    case Board.RED_PUSHED: chars[row][col] = 'r'; break;
+                    case Board.RED_PUSHER: chars[row][col] = 'R'; break;
+                    default: chars[row][col] = ' '; break;
+                }
+            }
+        }
+        return chars;
+    }
+}
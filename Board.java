@@ -1,8 +1,17 @@
 public class Board {
     // Board representation: 0=empty, 1=black pushed, 2=black pusher, 3=red pushed, 4=red pusher
-    private int[][] board;
+    // Each piece type is stored as a 64-bit bitboard indexed by piece code, where
+    // square = row * 8 + col (bit 0 = A8, bit 63 = H1). The squares array mirrors the
+    // bitboards so getPiece stays a single lookup.
+    private final long[] bitboards = new long[5];
+    private final int[] squares = new int[64];
     private boolean isRedPlayer;
-    private int redPushers, redPushed, blackPushers, blackPushed;
+    private boolean redToMove = true;
+    private long hash;
+    
+    // Running totals of BoardEvaluation's per-piece terms, from red's and black's point of view
+    private int redPieceSquareScore;
+    private int blackPieceSquareScore;
     
     // Constants for piece types
     public static final int EMPTY = 0;
@@ -11,69 +20,192 @@ public class Board {
     public static final int RED_PUSHED = 3;
     public static final int RED_PUSHER = 4;
     
+    // Bitboard masks
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long ROW_0 = 0xFFL;           // Rank 8 - red's goal row
+    public static final long ROW_7 = 0xFFL << 56;     // Rank 1 - black's goal row
+    
+    // Longest a game can last: every move advances one of a side's 16 pieces a row
+    public static final int MAX_MOVES_PER_SIDE = 16 * 7;
+    
+    // Undo record returned by makeMove, packed in a long so the search never allocates:
+    // bits 0-5 from square, 6-11 to square, 12-14 captured piece,
+    // bit 15 set when a pushed piece followed the pusher, 16-21 that pushed piece's origin.
+    // Piece counts are derived from the bitboards, so no counter deltas are needed.
+    public static final long ILLEGAL_MOVE = -1L;
+    private static final long FOLLOW_FLAG = 1L << 15;
+    
+    // Zobrist keys, one per piece type and square, plus one toggled when black is to move.
+    // The seed is fixed so hashes are stable between runs.
+    private static final long[][] ZOBRIST_PIECES = new long[5][64];
+    private static final long ZOBRIST_BLACK_TO_MOVE;
+    
+    static {
+        java.util.SplittableRandom random = new java.util.SplittableRandom(0x5EEDB0A4DL);
+        for (int piece = BLACK_PUSHED; piece <= RED_PUSHER; piece++) {
+            for (int square = 0; square < 64; square++) {
+                ZOBRIST_PIECES[piece][square] = random.nextLong();
+            }
+        }
+        ZOBRIST_BLACK_TO_MOVE = random.nextLong();
+    }
+    
+    private static final int[][] PIECE_SQUARE_RED = BoardEvaluation.pieceSquareTable(true);
+    private static final int[][] PIECE_SQUARE_BLACK = BoardEvaluation.pieceSquareTable(false);
+    
     public Board() {
-        board = new int[8][8];
         initializeBoard();
     }
     
     // Initialize the board with starting configuration
     private void initializeBoard() {
-        // Clear board
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                board[i][j] = EMPTY;
-            }
-        }
+        redToMove = true;
+        clearBoard();
         
         // Black pieces (top two rows)
-        // Row 0 (rank 8): Black pushers
+        // Row 0 (rank 8): Black pushers, Row 1 (rank 7): Black pushed
         for (int j = 0; j < 8; j++) {
-            board[0][j] = BLACK_PUSHER;
-        }
-        // Row 1 (rank 7): Black pushed
-        for (int j = 0; j < 8; j++) {
-            board[1][j] = BLACK_PUSHED;
+            put(j, BLACK_PUSHER);
+            put(8 + j, BLACK_PUSHED);
         }
         
         // Red pieces (bottom two rows)
-        // Row 7 (rank 1): Red pushers
+        // Row 7 (rank 1): Red pushers, Row 6 (rank 2): Red pushed
         for (int j = 0; j < 8; j++) {
-            board[7][j] = RED_PUSHER;
+            put(56 + j, RED_PUSHER);
+            put(48 + j, RED_PUSHED);
         }
-        // Row 6 (rank 2): Red pushed
-        for (int j = 0; j < 8; j++) {
-            board[6][j] = RED_PUSHED;
+    }
+    
+    private void clearBoard() {
+        java.util.Arrays.fill(bitboards, 0L);
+        java.util.Arrays.fill(squares, EMPTY);
+        hash = redToMove ? 0L : ZOBRIST_BLACK_TO_MOVE;
+        redPieceSquareScore = 0;
+        blackPieceSquareScore = 0;
+    }
+    
+    // Place a piece on an empty square
+    private void put(int square, int piece) {
+        squares[square] = piece;
+        bitboards[piece] |= 1L << square;
+        hash ^= ZOBRIST_PIECES[piece][square];
+        redPieceSquareScore += PIECE_SQUARE_RED[piece][square];
+        blackPieceSquareScore += PIECE_SQUARE_BLACK[piece][square];
+    }
+    
+    // Remove whatever piece is on a square
+    private void remove(int square) {
+        int piece = squares[square];
+        if (piece != EMPTY) {
+            bitboards[piece] &= ~(1L << square);
+            squares[square] = EMPTY;
+            hash ^= ZOBRIST_PIECES[piece][square];
+            redPieceSquareScore -= PIECE_SQUARE_RED[piece][square];
+            blackPieceSquareScore -= PIECE_SQUARE_BLACK[piece][square];
+        }
+    }
+    
+    // Copy another board's position into this one without allocating
+    public void copyFrom(Board other) {
+        System.arraycopy(other.bitboards, 0, bitboards, 0, bitboards.length);
+        System.arraycopy(other.squares, 0, squares, 0, squares.length);
+        isRedPlayer = other.isRedPlayer;
+        redToMove = other.redToMove;
+        hash = other.hash;
+        redPieceSquareScore = other.redPieceSquareScore;
+        blackPieceSquareScore = other.blackPieceSquareScore;
+    }
+    
+    /**
+     * Set up a position from one bitboard per piece type, indexed like getBitboard.
+     * The bitboards must not overlap.
+     */
+    public void setPosition(long[] pieces, boolean redToMove) {
+        this.redToMove = redToMove;
+        clearBoard();
+        for (int piece = BLACK_PUSHED; piece <= RED_PUSHER; piece++) {
+            for (long bits = pieces[piece]; bits != 0; bits &= bits - 1) {
+                put(Long.numberOfTrailingZeros(bits), piece);
+            }
         }
-        
-        // Initialize piece counts
-        redPushers = blackPushers = 8;
-        redPushed = blackPushed = 8;
     }
     
     // Parse server board configuration message
+    // The server only sends a full board at the start of a game, so Red is to move
     public void parseBoardFromServer(String boardData) {
         String[] pieces = boardData.trim().split("\\s+");
-        int index = 0;
         
-        // Reset piece counts
-        redPushers = redPushed = blackPushers = blackPushed = 0;
+        redToMove = true;
+        clearBoard();
         
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                if (index < pieces.length) {
-                    board[row][col] = Integer.parseInt(pieces[index]);
-                    
-                    // Count pieces
-                    switch (board[row][col]) {
-                        case BLACK_PUSHED: blackPushed++; break;
-                        case BLACK_PUSHER: blackPushers++; break;
-                        case RED_PUSHED: redPushed++; break;
-                        case RED_PUSHER: redPushers++; break;
-                    }
-                    index++;
-                }
+        for (int index = 0; index < 64 && index < pieces.length; index++) {
+            int piece = Integer.parseInt(pieces[index]);
+            if (piece > EMPTY && piece <= RED_PUSHER) {
+                put(index, piece);
+            }
+        }
+    }
+    
+    /**
+     * Parse a server board straight from bytes, without building any String: piece codes
+     * separated by anything that is not a digit, in the same order as
+     * parseBoardFromServer(String). The hash and piece counts are rebuilt in the same pass.
+     */
+    public void parseBoardFromServer(byte[] data, int offset, int length) {
+        redToMove = true;
+        clearBoard();
+        
+        int square = 0;
+        int value = -1; // Code being read, -1 between codes
+        for (int i = offset, end = offset + length; i < end && square < 64; i++) {
+            int digit = data[i] - '0';
+            if (digit >= 0 && digit <= 9) {
+                value = value < 0 ? digit : Math.min(10, value * 10 + digit);
+            } else if (value >= 0) {
+                putParsed(square++, value);
+                value = -1;
+            }
+        }
+        if (value >= 0 && square < 64) {
+            putParsed(square, value);
+        }
+    }
+    
+    /**
+     * Same as parseBoardFromServer(byte[], int, int) for the buffer's remaining bytes.
+     * The buffer's position is left unchanged.
+     */
+    public void parseBoardFromServer(java.nio.ByteBuffer data) {
+        if (data.hasArray()) {
+            parseBoardFromServer(data.array(), data.arrayOffset() + data.position(), data.remaining());
+            return;
+        }
+        redToMove = true;
+        clearBoard();
+        
+        int square = 0;
+        int value = -1;
+        for (int i = data.position(), end = data.limit(); i < end && square < 64; i++) {
+            int digit = data.get(i) - '0';
+            if (digit >= 0 && digit <= 9) {
+                value = value < 0 ? digit : Math.min(10, value * 10 + digit);
+            } else if (value >= 0) {
+                putParsed(square++, value);
+                value = -1;
             }
         }
+        if (value >= 0 && square < 64) {
+            putParsed(square, value);
+        }
+    }
+    
+    // Place a parsed piece code, ignoring empty squares and invalid codes
+    private void putParsed(int square, int piece) {
+        if (piece > EMPTY && piece <= RED_PUSHER) {
+            put(square, piece);
+        }
     }
     
     // Convert algebraic notation to board coordinates
@@ -130,48 +262,67 @@ public class Board {
     }
     
     // Execute a move on the board
-    public boolean makeMove(Move move) {
-        if (!isValidMove(move)) return false;
-        
-        int piece = board[move.fromRow][move.fromCol];
-        
-        // Handle capture
-        if (board[move.toRow][move.toCol] != EMPTY) {
-            int capturedPiece = board[move.toRow][move.toCol];
-            switch (capturedPiece) {
-                case BLACK_PUSHED: blackPushed--; break;
-                case BLACK_PUSHER: blackPushers--; break;
-                case RED_PUSHED: redPushed--; break;
-                case RED_PUSHER: redPushers--; break;
-            }
-        }
+    // Returns an undo record for unmakeMove, or ILLEGAL_MOVE if the move was rejected
+    public long makeMove(Move move) {
+        if (!isValidMove(move)) return ILLEGAL_MOVE;
+        return makeMove(move.pack());
+    }
+    
+    // Execute a packed move produced by MoveGenerator.generate without re-validating it
+    // Returns an undo record for unmakeMove
+    public long makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int piece = squares[from];
+        long undo = from | (to << 6) | ((long) squares[to] << 12);
+        
+        // Handle capture (the piece count follows from the bitboards)
+        remove(to);
         
         // Move the piece
-        board[move.toRow][move.toCol] = piece;
-        board[move.fromRow][move.fromCol] = EMPTY;
+        remove(from);
+        put(to, piece);
         
         // Check if this is a pusher moving a pushed piece
         if (isPusher(piece)) {
-            Move pushedMove = getPushedPieceMove(move, piece);
-            if (pushedMove != null) {
-                // Move the pushed piece
-                int pushedPiece = board[pushedMove.fromRow][pushedMove.fromCol];
-                if (board[pushedMove.toRow][pushedMove.toCol] != EMPTY) {
-                    // Capture by pushed piece
-                    int capturedPiece = board[pushedMove.toRow][pushedMove.toCol];
-                    switch (capturedPiece) {
-                        case BLACK_PUSHED: blackPushed--; break;
-                        case BLACK_PUSHER: blackPushers--; break;
-                        case RED_PUSHED: redPushed--; break;
-                        case RED_PUSHER: redPushers--; break;
-                    }
-                }
-                board[pushedMove.toRow][pushedMove.toCol] = pushedPiece;
-                board[pushedMove.fromRow][pushedMove.fromCol] = EMPTY;
+            int pushedFrom = getPushedPieceOrigin(from, to, piece);
+            if (pushedFrom >= 0) {
+                // The pushed piece follows into the square the pusher just left,
+                // which is always empty, so it never captures
+                int pushedPiece = squares[pushedFrom];
+                remove(pushedFrom);
+                put(from, pushedPiece);
+                undo |= FOLLOW_FLAG | ((long) pushedFrom << 16);
             }
         }
         
-        return true;
+        redToMove = !redToMove;
+        hash ^= ZOBRIST_BLACK_TO_MOVE;
+        return undo;
+    }
+    
+    // Restore the position from before the makeMove that returned this undo record
+    public void unmakeMove(long undo) {
+        int from = (int) (undo & 63);
+        int to = (int) ((undo >>> 6) & 63);
+        int captured = (int) ((undo >>> 12) & 7);
+        
+        if ((undo & FOLLOW_FLAG) != 0) {
+            int pushedFrom = (int) ((undo >>> 16) & 63);
+            int pushedPiece = squares[from];
+            remove(from);
+            put(pushedFrom, pushedPiece);
+        }
+        
+        int piece = squares[to];
+        remove(to);
+        put(from, piece);
+        if (captured != EMPTY) {
+            put(to, captured);
+        }
+        
+        redToMove = !redToMove;
+        hash ^= ZOBRIST_BLACK_TO_MOVE;
     }
     
     // Check if a move is valid
@@ -181,12 +332,12 @@ public class Board {
             return false;
         }
         
-        int piece = board[move.fromRow][move.fromCol];
+        int piece = squares[move.fromRow * 8 + move.fromCol];
         if (piece == EMPTY) return false;
         
-        // Check if it's the right player's piece
-        if (isRedPlayer && !isRedPiece(piece)) return false;
-        if (!isRedPlayer && !isBlackPiece(piece)) return false;
+        // Check if it's the piece of the side to move
+        if (redToMove && !isRedPiece(piece)) return false;
+        if (!redToMove && !isBlackPiece(piece)) return false;
         
         // Check direction (can only move toward opponent's end)
         int direction = isRedPiece(piece) ? -1 : 1; // Red moves up (decreasing row), Black moves down
@@ -197,7 +348,7 @@ public class Board {
         if (rowDiff != direction || colDiff > 1) return false;
         
         // Check destination
-        int targetPiece = board[move.toRow][move.toCol];
+        int targetPiece = squares[move.toRow * 8 + move.toCol];
         if (targetPiece != EMPTY) {
             // Can only capture opponent pieces and only on diagonal moves
             if (colDiff == 0) return false; // Can't capture moving straight
@@ -218,42 +369,21 @@ public class Board {
         return false;
     }
     
-    // Find pushed piece that would be moved by a pusher
-    private Move getPushedPieceMove(Move pusherMove, int pusherPiece) {
-        int rowDiff = pusherMove.toRow - pusherMove.fromRow;
-        int colDiff = pusherMove.toCol - pusherMove.fromCol;
-        
-        // Find the pushed piece that should be behind the pusher
-        int pushedRow = pusherMove.fromRow - rowDiff;
-        int pushedCol = pusherMove.fromCol - colDiff;
-        
-        if (!isValidPosition(pushedRow, pushedCol)) return null;
+    // Find the square of the pushed piece that follows a pusher moving from -> to,
+    // or -1 if there is none. The pushed piece sits behind the pusher on the same line
+    // and ends up on the square the pusher leaves.
+    private int getPushedPieceOrigin(int from, int to, int pusherPiece) {
+        int rowDiff = (to >> 3) - (from >> 3);
+        int colDiff = (to & 7) - (from & 7);
         
-        int pushedPiece = board[pushedRow][pushedCol];
-        if (pushedPiece == EMPTY) return null;
+        int pushedRow = (from >> 3) - rowDiff;
+        int pushedCol = (from & 7) - colDiff;
+        if (!isValidPosition(pushedRow, pushedCol)) return -1;
         
         // Check if it's the right type of pushed piece
-        boolean isPushedPieceValid = (isRedPiece(pusherPiece) && pushedPiece == RED_PUSHED) ||
-                                   (isBlackPiece(pusherPiece) && pushedPiece == BLACK_PUSHED);
-        
-        if (!isPushedPieceValid) return null;
-        
-        // Calculate where the pushed piece should move
-        int newPushedRow = pushedRow + rowDiff;
-        int newPushedCol = pushedCol + colDiff;
-        
-        if (!isValidPosition(newPushedRow, newPushedCol)) return null;
-        
-        // Check if destination is valid for pushed piece
-        int targetPiece = board[newPushedRow][newPushedCol];
-        if (targetPiece != EMPTY) {
-            // Can only capture opponent pieces and only on diagonal moves
-            if (colDiff == 0) return null;
-            if (isRedPiece(pushedPiece) && isRedPiece(targetPiece)) return null;
-            if (isBlackPiece(pushedPiece) && isBlackPiece(targetPiece)) return null;
-        }
-        
-        return new Move(pushedRow, pushedCol, newPushedRow, newPushedCol);
+        int pushedSquare = pushedRow * 8 + pushedCol;
+        int expected = isRedPiece(pusherPiece) ? RED_PUSHED : BLACK_PUSHED;
+        return squares[pushedSquare] == expected ? pushedSquare : -1;
     }
     
     // Convenience function to make a move using server notation (e.g., "D6-D5" or "D6D5")
@@ -262,20 +392,18 @@ public class Board {
         if (move == null) {
             return false;
         }
-        return makeMove(move);
+        return makeMove(move) != ILLEGAL_MOVE;
     }
     
     // Get current board configuration in server format (space-separated integers)
     public String getBoardConfiguration() {
         StringBuilder config = new StringBuilder();
         
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                if (config.length() > 0) {
-                    config.append(" ");
-                }
-                config.append(board[row][col]);
+        for (int square = 0; square < 64; square++) {
+            if (square > 0) {
+                config.append(" ");
             }
+            config.append(squares[square]);
         }
         
         return config.toString();
@@ -315,7 +443,7 @@ public class Board {
         
         if (!isValidPosition(pusherRow, pusherCol)) return false;
         
-        int pusherPiece = board[pusherRow][pusherCol];
+        int pusherPiece = squares[pusherRow * 8 + pusherCol];
         
         // Check if there's a pusher of the same color at the expected position
         if (pushedPiece == RED_PUSHED && pusherPiece == RED_PUSHER) {
@@ -330,34 +458,24 @@ public class Board {
 
     // Check win conditions
     public boolean isGameOver() {
-        return hasWinner() || redPushers == 0 || blackPushers == 0;
+        return hasWinner() || bitboards[RED_PUSHER] == 0 || bitboards[BLACK_PUSHER] == 0;
     }
     
     public boolean hasWinner() {
         // Check if any piece reached the opposite end
-        // Red wins if any red piece reaches row 0 (rank 8)
-        for (int col = 0; col < 8; col++) {
-            if (isRedPiece(board[0][col])) return true;
-        }
-        
-        // Black wins if any black piece reaches row 7 (rank 1)
-        for (int col = 0; col < 8; col++) {
-            if (isBlackPiece(board[7][col])) return true;
-        }
-        
-        return false;
+        // Red wins if any red piece reaches row 0 (rank 8),
+        // black wins if any black piece reaches row 7 (rank 1)
+        return (getRedPieces() & ROW_0) != 0 || (getBlackPieces() & ROW_7) != 0;
     }
     
     public String getWinner() {
         // Check positional win
-        for (int col = 0; col < 8; col++) {
-            if (isRedPiece(board[0][col])) return "Red";
-            if (isBlackPiece(board[7][col])) return "Black";
-        }
+        if ((getRedPieces() & ROW_0) != 0) return "Red";
+        if ((getBlackPieces() & ROW_7) != 0) return "Black";
         
         // Check capture win
-        if (redPushers == 0) return "Black";
-        if (blackPushers == 0) return "Red";
+        if (bitboards[RED_PUSHER] == 0) return "Black";
+        if (bitboards[BLACK_PUSHER] == 0) return "Red";
         
         return null;
     }
@@ -371,16 +489,68 @@ public class Board {
         return isRedPlayer;
     }
     
+    // Side to move flips on every makeMove/unmakeMove
+    public void setRedToMove(boolean redToMove) {
+        if (this.redToMove != redToMove) {
+            this.redToMove = redToMove;
+            hash ^= ZOBRIST_BLACK_TO_MOVE;
+        }
+    }
+    
+    public boolean isRedToMove() {
+        return redToMove;
+    }
+    
+    // Sum of BoardEvaluation's per-piece terms for one point of view, updated by makeMove
+    public int getPieceSquareScore(boolean forRed) {
+        return forRed ? redPieceSquareScore : blackPieceSquareScore;
+    }
+    
+    // Entry of the per-piece table behind getPieceSquareScore
+    public static int getPieceSquareValue(boolean forRed, int piece, int square) {
+        return (forRed ? PIECE_SQUARE_RED : PIECE_SQUARE_BLACK)[piece][square];
+    }
+    
+    // Zobrist key of the position and side to move, updated incrementally by makeMove
+    public long getHash() {
+        return hash;
+    }
+    
     public int getPiece(int row, int col) {
         if (isValidPosition(row, col)) {
-            return board[row][col];
+            return squares[row * 8 + col];
         }
         return -1;
     }
     
+    // Bitboard of every square holding the given piece type
+    public long getBitboard(int piece) {
+        return bitboards[piece];
+    }
+    
+    public long getRedPieces() {
+        return bitboards[RED_PUSHER] | bitboards[RED_PUSHED];
+    }
+    
+    public long getBlackPieces() {
+        return bitboards[BLACK_PUSHER] | bitboards[BLACK_PUSHED];
+    }
+    
+    public long getOccupied() {
+        return getRedPieces() | getBlackPieces();
+    }
+    
+    public int getPieceCount(int piece) {
+        return Long.bitCount(bitboards[piece]);
+    }
+    
     public void setPiece(int row, int col, int piece) {
         if (isValidPosition(row, col)) {
-            board[row][col] = piece;
+            int square = row * 8 + col;
+            remove(square);
+            if (piece > EMPTY && piece <= RED_PUSHER) {
+                put(square, piece);
+            }
         }
     }
     
@@ -391,7 +561,7 @@ public class Board {
             System.out.print((8 - row) + "  ");
             for (int col = 0; col < 8; col++) {
                 char symbol;
-                switch (board[row][col]) {
+                switch (squares[row * 8 + col]) {
                     case EMPTY: symbol = '.'; break;
                     case BLACK_PUSHED: symbol = 'p'; break;
                     case BLACK_PUSHER: symbol = 'P'; break;
@@ -403,12 +573,18 @@ public class Board {
             }
             System.out.println();
         }
-        System.out.println("Red: " + redPushers + " pushers, " + redPushed + " pushed");
-        System.out.println("Black: " + blackPushers + " pushers, " + blackPushed + " pushed");
+        System.out.println("Red: " + getPieceCount(RED_PUSHER) + " pushers, " + getPieceCount(RED_PUSHED) + " pushed");
+        System.out.println("Black: " + getPieceCount(BLACK_PUSHER) + " pushers, " + getPieceCount(BLACK_PUSHED) + " pushed");
     }
     
     // Inner class for representing moves
+    // The search passes moves around as packed ints instead:
+    // bits 0-5 from square, 6-11 to square, bit 12 capture, bit 13 pushed-piece move
     public static class Move {
+        public static final int NONE = 0;
+        public static final int CAPTURE = 1 << 12;
+        public static final int PUSH = 1 << 13;
+        
         public int fromRow, fromCol, toRow, toCol;
         
         public Move(int fromRow, int fromCol, int toRow, int toCol) {
@@ -418,6 +594,37 @@ public class Board {
             this.toCol = toCol;
         }
         
+        public static int encode(int from, int to, int flags) {
+            return from | (to << 6) | flags;
+        }
+        
+        public static int from(int move) {
+            return move & 63;
+        }
+        
+        public static int to(int move) {
+            return (move >>> 6) & 63;
+        }
+        
+        public static boolean isCapture(int move) {
+            return (move & CAPTURE) != 0;
+        }
+        
+        public static boolean isPush(int move) {
+            return (move & PUSH) != 0;
+        }
+        
+        public static Move decode(int move) {
+            int from = from(move);
+            int to = to(move);
+            return new Move(from >> 3, from & 7, to >> 3, to & 7);
+        }
+        
+        // Packed form without flags; makeMove(int) does not need them
+        public int pack() {
+            return encode(fromRow * 8 + fromCol, toRow * 8 + toCol, 0);
+        }
+        
         @Override
         public String toString() {
             char fromFile = (char)('A' + fromCol);
@@ -430,5 +637,15 @@ public class Board {
         public String toServerFormat() {
             return toString().replace("-", "");
         }
+        
+        // Server format of a packed move (e.g. "D6D5"), only needed at the protocol boundary
+        public static String toServerFormat(int move) {
+            int from = from(move);
+            int to = to(move);
+            return new String(new char[] {
+                (char)('A' + (from & 7)), (char)('8' - (from >> 3)),
+                (char)('A' + (to & 7)), (char)('8' - (to >> 3))
+            });
+        }
     }
 }
@@ -1,47 +1,188 @@
 public class BoardEvaluation {
     
-    // Heavily favor advancement towards the goal with exponential bonuses
-    private static final int[][] RedPlaceValue = {
-        {100000, 100000, 100000, 100000, 100000, 100000, 100000, 100000}, // Goal line - MASSIVE bonus
-        {50000, 50000, 60000, 60000, 60000, 60000, 50000, 50000},          // Almost there - huge bonus
-        {10000, 10000, 15000, 15000, 15000, 15000, 10000, 10000},          // Deep in enemy territory
-        {2000, 2000, 3000, 3000, 3000, 3000, 2000, 2000},                 // Mid-board advancing
-        {500, 500, 800, 800, 800, 800, 500, 500},                         // Crossing center
-        {100, 100, 200, 200, 200, 200, 100, 100},                         // Still in own half
-        {20, 20, 40, 40, 40, 40, 20, 20},                                  // Near starting position
-        {0, 0, 0, 0, 0, 0, 0, 0}                                           // Starting line
+    // A weight vector holds the scalar weights in WEIGHT_NAMES order, then the 64 place
+    // values from red's point of view. DEFAULT_WEIGHTS are the ones in EvaluationWeights;
+    // EvalTuner searches over other vectors and writes the best back as that class.
+    static final String[] WEIGHT_NAMES = {
+        "PUSHER_VALUE", "NORMAL_PIECE_VALUE", "CAPTURE_PUSHER_BONUS", "CAPTURE_NORMAL_BONUS",
+        "CENTER_CONTROL_BONUS", "ADVANCEMENT_BONUS", "PUSHER_MOBILITY_BONUS", "NEAR_GOAL_BONUS",
+        "PUSHER_BEHIND_PUSHED_BONUS", "EDGE_COLUMN_PENALTY", "CENTER_COLUMN_BONUS", "ENEMY_PUSHER_THREAT",
+        "ENEMY_PUSHED_THREAT", "FORMATION_ADVANCE_BONUS", "PUSH_READY_BONUS", "ADVANCED_PUSHER_BONUS",
     };
+    static final int W_PUSHER_VALUE = 0;                // Base value of a pusher
+    static final int W_NORMAL_PIECE_VALUE = 1;          // Base value of a pushed piece
+    static final int W_CAPTURE_PUSHER_BONUS = 2;        // Per pusher ahead in material
+    static final int W_CAPTURE_NORMAL_BONUS = 3;        // Per piece ahead in material
+    static final int W_CENTER_CONTROL_BONUS = 4;        // Pieces on columns D/E (half on C/F)
+    static final int W_ADVANCEMENT_BONUS = 5;           // Per row advanced
+    static final int W_PUSHER_MOBILITY_BONUS = 6;       // Per pusher
+    static final int W_NEAR_GOAL_BONUS = 7;             // Pieces one or two rows from the goal
+    static final int W_PUSHER_BEHIND_PUSHED_BONUS = 8;  // Pusher directly behind a pushed piece (half diagonally)
+    static final int W_EDGE_COLUMN_PENALTY = 9;         // Pieces on columns A/H
+    static final int W_CENTER_COLUMN_BONUS = 10;        // Pieces on columns C-F
+    static final int W_ENEMY_PUSHER_THREAT = 11;        // Per row an enemy pusher has advanced
+    static final int W_ENEMY_PUSHED_THREAT = 12;        // Per row an enemy pushed piece has advanced
+    static final int W_FORMATION_ADVANCE_BONUS = 13;    // Per row a pusher-behind-pushed formation has advanced
+    static final int W_PUSH_READY_BONUS = 14;           // Pusher that can push the piece behind it forward
+    static final int W_ADVANCED_PUSHER_BONUS = 15;      // Per row a pusher is into the enemy half
+    static final int W_PLACE_VALUE = 16;
+    static final int WEIGHT_COUNT = W_PLACE_VALUE + 64;
     
-    // Mirror for black pieces (they advance towards row 7)
-    private static final int[][] BlackPlaceValue = {
-        {0, 0, 0, 0, 0, 0, 0, 0},                                           // Starting line
-        {20, 20, 40, 40, 40, 40, 20, 20},                                  // Near starting position
-        {100, 100, 200, 200, 200, 200, 100, 100},                         // Still in own half
-        {500, 500, 800, 800, 800, 800, 500, 500},                         // Crossing center
-        {2000, 2000, 3000, 3000, 3000, 3000, 2000, 2000},                 // Mid-board advancing
-        {10000, 10000, 15000, 15000, 15000, 15000, 10000, 10000},          // Deep in enemy territory
-        {50000, 50000, 60000, 60000, 60000, 60000, 50000, 50000},          // Almost there - huge bonus
-        {100000, 100000, 100000, 100000, 100000, 100000, 100000, 100000}  // Goal line - MASSIVE bonus
-    };
+    static final int[] DEFAULT_WEIGHTS = defaultWeights();
+    
+    private static final long NOT_FILE_A = ~Board.FILE_A;
+    private static final long NOT_FILE_H = ~Board.FILE_H;
     
-    // Piece values - Pushers are significantly more valuable
-    private static final int PUSHER_VALUE = 200;       // Higher base value for pushers
-    private static final int NORMAL_PIECE_VALUE = 80;  // Lower value for pushed pieces
+    /**
+     * Builds the per-piece part of evaluate for one point of view: everything that depends
+     * only on a single piece and its square. Board keeps the sum of these values up to date
+     * in makeMove/unmakeMove, so evaluate(Board, boolean) does not have to rescan the board.
+     * @param isRed True for red's point of view, false for black's
+     * @return Table indexed by [piece][square]
+     */
+    public static int[][] pieceSquareTable(boolean isRed) {
+        return pieceSquareTable(isRed, DEFAULT_WEIGHTS);
+    }
+    
+    /**
+     * pieceSquareTable for any weight vector
+     */
+    static int[][] pieceSquareTable(boolean isRed, int[] w) {
+        int[][] table = new int[5][64];
+        for (int square = 0; square < 64; square++) {
+            int row = square >> 3;
+            int col = square & 7;
+            boolean nearGoal = (isRed && row <= 1) || (!isRed && row >= 6);
+            int positionalValue = getPositionalValue(row, col, isRed, w);
+            int enemyPositionalValue = getPositionalValue(row, col, !isRed, w);
+            int enemyAdvancement = getEnemyAdvancementThreat(row, !isRed);
+            int columnBonus = getCenterControlBonus(row, col, w) + getCenterColumnBonus(row, col, w);
+            
+            int myPusher = w[W_PUSHER_VALUE] + w[W_PUSHER_MOBILITY_BONUS]
+                         + positionalValue * 3
+                         + getAdvancementBonus(row, isRed, true, w) * 2
+                         + (nearGoal ? w[W_NEAR_GOAL_BONUS] * 3 : 0)
+                         + columnBonus;
+            // Advanced-position part of getPusherAdvancementBonus
+            if (isRed && row <= 3) {
+                myPusher += w[W_ADVANCED_PUSHER_BONUS] * (4 - row);
+            } else if (!isRed && row >= 4) {
+                myPusher += w[W_ADVANCED_PUSHER_BONUS] * (row - 3);
+            }
+            int myPushed = w[W_NORMAL_PIECE_VALUE]
+                         + positionalValue / 2
+                         + getAdvancementBonus(row, isRed, false, w) / 2
+                         + (nearGoal ? w[W_NEAR_GOAL_BONUS] / 2 : 0)
+                         + columnBonus;
+            int enemyPusher = -w[W_PUSHER_VALUE] - enemyAdvancement * w[W_ENEMY_PUSHER_THREAT] - enemyPositionalValue;
+            int enemyPushed = -w[W_NORMAL_PIECE_VALUE] - enemyAdvancement * w[W_ENEMY_PUSHED_THREAT] - enemyPositionalValue;
+            
+            table[isRed ? Board.RED_PUSHER : Board.BLACK_PUSHER][square] = myPusher;
+            table[isRed ? Board.RED_PUSHED : Board.BLACK_PUSHED][square] = myPushed;
+            table[isRed ? Board.BLACK_PUSHER : Board.RED_PUSHER][square] = enemyPusher;
+            table[isRed ? Board.BLACK_PUSHED : Board.RED_PUSHED][square] = enemyPushed;
+        }
+        return table;
+    }
     
-    // Bonus values - Heavy emphasis on advancement and pusher mobility
-    private static final int CAPTURE_PUSHER_BONUS = 5000;    // MASSIVE bonus for capturing pushers
-    private static final int CAPTURE_NORMAL_BONUS = 2000;    // Large bonus for capturing pushed pieces
-    private static final int CENTER_CONTROL_BONUS = 25;      // Increased center control bonus
-    private static final int ADVANCEMENT_BONUS = 100;   // Much higher advancement bonus
-    private static final int PUSHER_MOBILITY_BONUS = 40; // Bonus for pusher moves
-    private static final int NEAR_GOAL_BONUS = 10000;    // MASSIVE bonus for being very close to goal
-    private static final int PUSHER_BEHIND_PUSHED_BONUS = 1000; // Big bonus for pusher-pushed formations
+    /**
+     * Material swing of capturing the given piece, as counted by evaluate: the capturing
+     * side gains it regardless of which side evaluate is called for
+     */
+    public static int captureValue(int victim) {
+        boolean pusher = victim == Board.RED_PUSHER || victim == Board.BLACK_PUSHER;
+        return pusher ? EvaluationWeights.CAPTURE_PUSHER_BONUS + EvaluationWeights.CAPTURE_NORMAL_BONUS
+                      : EvaluationWeights.CAPTURE_NORMAL_BONUS;
+    }
     
-    // NEW: Piece preservation and positioning penalties/bonuses
-    private static final int PIECE_EXPOSURE_PENALTY = 3000;    // Much higher penalty for pieces exposed to capture
-    private static final int EDGE_COLUMN_PENALTY = 200;       // Penalty for pieces on edge columns A/H
-    private static final int CENTER_COLUMN_BONUS = 150;       // Extra bonus for center columns C-F
-    private static final int SAFE_POSITION_BONUS = 1000;      // Bonus for pieces in safe positions
+    /**
+     * Evaluates the board position for the given color. Gives the same score as
+     * evaluate(char[][], String) without allocating: the per-piece terms come from the
+     * running total kept by Board, and the remaining terms use bitboard operations.
+     * @param board The board to evaluate
+     * @param isRed True to evaluate for red, false for black
+     * @return positive value indicating board evaluation score
+     */
+    public static int evaluate(Board board, boolean isRed) {
+        return evaluate(board.getBitboard(Board.RED_PUSHER), board.getBitboard(Board.RED_PUSHED),
+                board.getBitboard(Board.BLACK_PUSHER), board.getBitboard(Board.BLACK_PUSHED),
+                board.getPieceSquareScore(isRed), isRed, DEFAULT_WEIGHTS);
+    }
+    
+    /**
+     * evaluate(Board, boolean) on bare bitboards and any weight vector
+     * @param pieceSquareScore Sum over the pieces of pieceSquareTable(isRed, w)
+     */
+    static int evaluate(long redPushers, long redPushed, long blackPushers, long blackPushed,
+                        int pieceSquareScore, boolean isRed, int[] w) {
+        // For empty board, return base value only
+        if ((redPushers | redPushed | blackPushers | blackPushed) == 0) {
+            return 1000;
+        }
+        
+        int score = signedScore(redPushers, redPushed, blackPushers, blackPushed, pieceSquareScore, isRed, w);
+        
+        // Ensure positive result by adding a base value
+        score += 1000;
+        
+        return Math.max(1, score); // Ensure at least 1
+    }
+    
+    /**
+     * The score evaluate is built on, before its base value and the clamp to at least 1:
+     * positive when isRed's side is ahead, negative when it is behind. EvalTuner fits
+     * game results against this.
+     */
+    static int signedScore(long redPushers, long redPushed, long blackPushers, long blackPushed,
+                           int pieceSquareScore, boolean isRed, int[] w) {
+        long myPusherBits = isRed ? redPushers : blackPushers;
+        long myPushedBits = isRed ? redPushed : blackPushed;
+        long enemyPusherBits = isRed ? blackPushers : redPushers;
+        long enemyPushedBits = isRed ? blackPushed : redPushed;
+        
+        int myPushers = Long.bitCount(myPusherBits);
+        int myNormal = Long.bitCount(myPushedBits);
+        int enemyPushers = Long.bitCount(enemyPusherBits);
+        int enemyNormal = Long.bitCount(enemyPushedBits);
+        
+        int score = pieceSquareScore;
+        
+        // Winning condition bonuses
+        long myPieces = myPusherBits | myPushedBits;
+        if ((myPieces & (isRed ? Board.ROW_0 : Board.ROW_7)) != 0) {
+            score += 1000000;
+        }
+        if (enemyPushers == 0 && enemyNormal > 0) {
+            score += 10000;
+        }
+        score += (myPushers - enemyPushers) * w[W_CAPTURE_PUSHER_BONUS];
+        score += ((myPushers + myNormal) - (enemyPushers + enemyNormal)) * w[W_CAPTURE_NORMAL_BONUS];
+        
+        // Formation terms: pushers that can push forward, pushers behind pushed pieces
+        long empty = ~(redPushers | redPushed | blackPushers | blackPushed);
+        int formation = w[W_PUSHER_BEHIND_PUSHED_BONUS];
+        int formationAdvance = w[W_FORMATION_ADVANCE_BONUS];
+        if (isRed) {
+            score += w[W_PUSH_READY_BONUS] * Long.bitCount(myPusherBits & (myPushedBits >>> 8) & (empty << 8));
+            long straight = myPushedBits & (myPusherBits >>> 8);
+            score += Long.bitCount(straight) * formation;
+            for (; straight != 0; straight &= straight - 1) {
+                score += (7 - (Long.numberOfTrailingZeros(straight) >> 3)) * formationAdvance;
+            }
+            score += (formation / 2) * Long.bitCount(myPushedBits & ((myPusherBits & NOT_FILE_H) >>> 7));
+            score += (formation / 2) * Long.bitCount(myPushedBits & ((myPusherBits & NOT_FILE_A) >>> 9));
+        } else {
+            score += w[W_PUSH_READY_BONUS] * Long.bitCount(myPusherBits & (myPushedBits << 8) & (empty >>> 8));
+            long straight = myPushedBits & (myPusherBits << 8);
+            score += Long.bitCount(straight) * formation;
+            for (; straight != 0; straight &= straight - 1) {
+                score += (Long.numberOfTrailingZeros(straight) >> 3) * formationAdvance;
+            }
+            score += (formation / 2) * Long.bitCount(myPushedBits & ((myPusherBits & NOT_FILE_H) << 9));
+            score += (formation / 2) * Long.bitCount(myPushedBits & ((myPusherBits & NOT_FILE_A) << 7));
+        }
+        return score;
+    }
     
     /**
      * Evaluates the board position for the given color
@@ -64,6 +205,7 @@ public class BoardEvaluation {
         
         int score = 0;
         boolean isRed = color.equals("red");
+        int[] w = DEFAULT_WEIGHTS;
         
         // Count pieces and calculate positional values
         int myPushers = 0, myNormal = 0;
@@ -86,80 +228,77 @@ public class BoardEvaluation {
                     // Our pieces - add positive value
                     if (isPusher) {
                         myPushers++;
-                        score += PUSHER_VALUE;
+                        score += w[W_PUSHER_VALUE];
                         // Extra bonus for pushers being mobile and advancing
-                        score += PUSHER_MOBILITY_BONUS;
+                        score += w[W_PUSHER_MOBILITY_BONUS];
                         
                         // CRITICAL: Pushers get MUCH higher positional and advancement bonuses
                         // since they are the key to winning and can move independently
-                        int positionalValue = getPositionalValue(row, col, isRed);
+                        int positionalValue = getPositionalValue(row, col, isRed, w);
                         score += positionalValue * 3; // Triple positional bonus for pushers
                         
                         // Heavy advancement bonus for pushers
-                        score += getAdvancementBonus(row, isRed, isPusher) * 2;
+                        score += getAdvancementBonus(row, isRed, isPusher, w) * 2;
                         
                         // Near goal bonus for pushers - they're the key to winning
                         if ((isRed && row <= 1) || (!isRed && row >= 6)) {
-                            score += NEAR_GOAL_BONUS * 3; // Triple bonus for pushers near goal
+                            score += w[W_NEAR_GOAL_BONUS] * 3; // Triple bonus for pushers near goal
                         }
                         
                     } else {
                         myNormal++;
-                        score += NORMAL_PIECE_VALUE;
+                        score += w[W_NORMAL_PIECE_VALUE];
                         
                         // Pushed pieces get much smaller positional bonuses
                         // since they depend on pushers to move
-                        int positionalValue = getPositionalValue(row, col, isRed);
+                        int positionalValue = getPositionalValue(row, col, isRed, w);
                         score += positionalValue / 2; // Half positional bonus for pushed pieces
                         
                         // Small advancement bonus for pushed pieces
-                        score += getAdvancementBonus(row, isRed, isPusher) / 2;
+                        score += getAdvancementBonus(row, isRed, isPusher, w) / 2;
                         
                         // Small near goal bonus for pushed pieces
                         if ((isRed && row <= 1) || (!isRed && row >= 6)) {
-                            score += NEAR_GOAL_BONUS / 2;
+                            score += w[W_NEAR_GOAL_BONUS] / 2;
                         }
                     }
                     
                     // Add center control bonus (same for both types)
-                    score += getCenterControlBonus(row, col);
+                    score += getCenterControlBonus(row, col, w);
                     
                     // NEW: Add center column bonus and edge column penalty
-                    score += getCenterColumnBonus(row, col);
+                    score += getCenterColumnBonus(row, col, w);
                     
                 } else {
                     // Enemy pieces - subtract value AND calculate capture bonuses
                     if (isPusher) {
                         enemyPushers++;
-                        score -= PUSHER_VALUE;
+                        score -= w[W_PUSHER_VALUE];
                         
                         // CRITICAL: Heavy penalty for enemy pushers close to our goal
                         int enemyAdvancement = getEnemyAdvancementThreat(row, !isRed);
-                        score -= enemyAdvancement * 1000; // Massive penalty for advanced enemies
+                        score -= enemyAdvancement * w[W_ENEMY_PUSHER_THREAT]; // Massive penalty for advanced enemies
                         
                     } else {
                         enemyNormal++;
-                        score -= NORMAL_PIECE_VALUE;
+                        score -= w[W_NORMAL_PIECE_VALUE];
                         
                         // Penalty for enemy pushed pieces close to our goal
                         int enemyAdvancement = getEnemyAdvancementThreat(row, !isRed);
-                        score -= enemyAdvancement * 500;
+                        score -= enemyAdvancement * w[W_ENEMY_PUSHED_THREAT];
                     }
                     
                     // Subtract enemy positional advantages
-                    score -= getPositionalValue(row, col, !isRed);
+                    score -= getPositionalValue(row, col, !isRed, w);
                 }
             }
         }
         
         // Winning condition bonuses
-        score += getWinningConditionBonus(myPushers, myNormal, enemyPushers, enemyNormal, board, isRed);
+        score += getWinningConditionBonus(myPushers, myNormal, enemyPushers, enemyNormal, board, isRed, w);
         
         // CRITICAL: Bonus for good pusher-pushed formations
-        score += getPusherBehindPushedBonus(board, isRed);
-        
-        // NEW: Apply piece preservation penalties - check for exposed pieces
-        score -= getPieceExposurePenalty(board, isRed);
+        score += getPusherBehindPushedBonus(board, isRed, w);
         
         // For empty board, return base value only
         if (myPushers == 0 && myNormal == 0 && enemyPushers == 0 && enemyNormal == 0) {
@@ -175,26 +314,23 @@ public class BoardEvaluation {
     /**
      * Gets positional value based on the position matrices
      */
-    private static int getPositionalValue(int row, int col, boolean isRed) {
-        if (isRed) {
-            return RedPlaceValue[row][col];
-        } else {
-            return BlackPlaceValue[row][col];
-        }
+    private static int getPositionalValue(int row, int col, boolean isRed, int[] w) {
+        // Black's table is red's mirrored top to bottom
+        return w[W_PLACE_VALUE + (isRed ? row : 7 - row) * 8 + col];
     }
     
     /**
      * Calculates advancement bonus - pieces closer to opponent's end get higher bonus
      * Pushers get extra bonus for advancing
      */
-    private static int getAdvancementBonus(int row, boolean isRed, boolean isPusher) {
+    private static int getAdvancementBonus(int row, boolean isRed, boolean isPusher, int[] w) {
         int baseBonus;
         if (isRed) {
             // Red advances towards row 0 (top of board, black's territory)
-            baseBonus = (7 - row) * ADVANCEMENT_BONUS;
+            baseBonus = (7 - row) * w[W_ADVANCEMENT_BONUS];
         } else {
             // Black advances towards row 7 (bottom of board, red's territory)
-            baseBonus = row * ADVANCEMENT_BONUS;
+            baseBonus = row * w[W_ADVANCEMENT_BONUS];
         }
         
         // Pushers get double advancement bonus to encourage their movement
@@ -217,13 +353,13 @@ public class BoardEvaluation {
     /**
      * Calculates center control bonus for pieces in the middle columns
      */
-    private static int getCenterControlBonus(int row, int col) {
+    private static int getCenterControlBonus(int row, int col, int[] w) {
         // Columns 3, 4 (D, E) get full bonus
         // Columns 2, 5 (C, F) get half bonus
         if (col == 3 || col == 4) {
-            return CENTER_CONTROL_BONUS;
+            return w[W_CENTER_CONTROL_BONUS];
         } else if (col == 2 || col == 5) {
-            return CENTER_CONTROL_BONUS / 2;
+            return w[W_CENTER_CONTROL_BONUS] / 2;
         }
         return 0;
     }
@@ -233,7 +369,7 @@ public class BoardEvaluation {
      */
     private static int getWinningConditionBonus(int myPushers, int myNormal, 
                                                int enemyPushers, int enemyNormal, 
-                                               char[][] board, boolean isRed) {
+                                               char[][] board, boolean isRed, int[] w) {
         int bonus = 0;
         
         // Huge bonus if we can win by reaching the end
@@ -246,14 +382,14 @@ public class BoardEvaluation {
         
         // Bonus for having more pushers than enemy
         int pusherAdvantage = myPushers - enemyPushers;
-        bonus += pusherAdvantage * CAPTURE_PUSHER_BONUS;
+        bonus += pusherAdvantage * w[W_CAPTURE_PUSHER_BONUS];
         
         // Bonus for having more total pieces
         int totalAdvantage = (myPushers + myNormal) - (enemyPushers + enemyNormal);
-        bonus += totalAdvantage * CAPTURE_NORMAL_BONUS;
+        bonus += totalAdvantage * w[W_CAPTURE_NORMAL_BONUS];
         
         // Additional bonus for pushers in advanced positions that can push pieces forward
-        bonus += getPusherAdvancementBonus(board, isRed);
+        bonus += getPusherAdvancementBonus(board, isRed, w);
         
         return bonus;
     }
@@ -261,7 +397,7 @@ public class BoardEvaluation {
     /**
      * Special bonus for pushers that are in good positions to advance and push pieces
      */
-    private static int getPusherAdvancementBonus(char[][] board, boolean isRed) {
+    private static int getPusherAdvancementBonus(char[][] board, boolean isRed, int[] w) {
         int bonus = 0;
         
         for (int row = 0; row < 8; row++) {
@@ -274,9 +410,9 @@ public class BoardEvaluation {
                 if (isMyPusher) {
                     // Bonus for pushers in advanced positions
                     if (isRed && row <= 3) { // Red pusher in upper half
-                        bonus += 50 * (4 - row); // More bonus for being closer to goal
+                        bonus += w[W_ADVANCED_PUSHER_BONUS] * (4 - row); // More bonus for being closer to goal
                     } else if (!isRed && row >= 4) { // Black pusher in lower half
-                        bonus += 50 * (row - 3); // More bonus for being closer to goal
+                        bonus += w[W_ADVANCED_PUSHER_BONUS] * (row - 3); // More bonus for being closer to goal
                     }
                     
                     // Check if this pusher can push a piece forward
@@ -293,7 +429,7 @@ public class BoardEvaluation {
                             char frontPiece = board[frontRow][col];
                             if (frontPiece == ' ' || frontPiece == '\0') {
                                 // Can push piece forward - big bonus!
-                                bonus += 100;
+                                bonus += w[W_PUSH_READY_BONUS];
                             }
                         }
                     }
@@ -327,7 +463,7 @@ public class BoardEvaluation {
      * Calculates bonus for having pushers positioned behind pushed pieces
      * This formation allows for forward advancement
      */
-    private static int getPusherBehindPushedBonus(char[][] board, boolean isRed) {
+    private static int getPusherBehindPushedBonus(char[][] board, boolean isRed, int[] w) {
         int bonus = 0;
         char myPusher = isRed ? 'R' : 'B';
         char myPushed = isRed ? 'r' : 'b';
@@ -344,20 +480,20 @@ public class BoardEvaluation {
                     
                     // Check straight behind
                     if (pusherRow >= 0 && pusherRow < 8 && board[pusherRow][col] == myPusher) {
-                        bonus += PUSHER_BEHIND_PUSHED_BONUS;
+                        bonus += w[W_PUSHER_BEHIND_PUSHED_BONUS];
                         
                         // Extra bonus if this formation is advancing
                         int advancementLevel = getAdvancementLevel(row, isRed);
-                        bonus += advancementLevel * 200; // More bonus for advanced formations
+                        bonus += advancementLevel * w[W_FORMATION_ADVANCE_BONUS]; // More bonus for advanced formations
                     }
                     
                     // Check diagonal behind positions too
                     if (pusherRow >= 0 && pusherRow < 8) {
                         if (col > 0 && board[pusherRow][col - 1] == myPusher) {
-                            bonus += PUSHER_BEHIND_PUSHED_BONUS / 2; // Half bonus for diagonal support
+                            bonus += w[W_PUSHER_BEHIND_PUSHED_BONUS] / 2; // Half bonus for diagonal support
                         }
                         if (col < 7 && board[pusherRow][col + 1] == myPusher) {
-                            bonus += PUSHER_BEHIND_PUSHED_BONUS / 2; // Half bonus for diagonal support
+                            bonus += w[W_PUSHER_BEHIND_PUSHED_BONUS] / 2; // Half bonus for diagonal support
                         }
                     }
                 }
@@ -382,127 +518,42 @@ public class BoardEvaluation {
      * NEW: Calculates center column bonus and edge column penalty
      * Strongly encourage center play and discourage edge play
      */
-    private static int getCenterColumnBonus(int row, int col) {
+    private static int getCenterColumnBonus(int row, int col, int[] w) {
         // Penalty for edge columns A (0) and H (7)
         if (col == 0 || col == 7) {
-            return -EDGE_COLUMN_PENALTY;
+            return -w[W_EDGE_COLUMN_PENALTY];
         }
         
         // Extra bonus for center columns C-F (2-5)
         if (col >= 2 && col <= 5) {
-            return CENTER_COLUMN_BONUS;
+            return w[W_CENTER_COLUMN_BONUS];
         }
         
         // Columns B and G get no bonus/penalty
         return 0;
     }
     
-    /**
-     * NEW: Calculates penalty for pieces that are exposed to enemy capture
-     * This helps preserve our pieces by avoiding dangerous positions
-     */
-    private static int getPieceExposurePenalty(char[][] board, boolean isRed) {
-        int penalty = 0;
-        char myPusher = isRed ? 'R' : 'B';
-        char myPushed = isRed ? 'r' : 'b';
-        
-        // Check each of our pieces to see if they can be captured
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                char piece = board[row][col];
-                
-                // Check if this is one of our pieces
-                if (piece == myPusher || piece == myPushed) {
-                    // Check if this piece can be captured by enemy pieces
-                    if (canBeCapturedByEnemy(board, row, col, isRed)) {
-                        // Higher penalty for pushers being exposed
-                        if (piece == myPusher) {
-                            penalty += PIECE_EXPOSURE_PENALTY * 2; // Double penalty for exposed pushers
-                        } else {
-                            penalty += PIECE_EXPOSURE_PENALTY;
-                        }
-                        
-                        // Extra penalty if the piece is advanced (losing advanced pieces is worse)
-                        int advancementLevel = getAdvancementLevel(row, isRed);
-                        if (advancementLevel >= 4) { // Advanced pieces
-                            penalty += PIECE_EXPOSURE_PENALTY / 2;
-                        }
-                    }
-                }
-            }
+    private static int[] defaultWeights() {
+        int[] w = new int[WEIGHT_COUNT];
+        w[W_PUSHER_VALUE] = EvaluationWeights.PUSHER_VALUE;
+        w[W_NORMAL_PIECE_VALUE] = EvaluationWeights.NORMAL_PIECE_VALUE;
+        w[W_CAPTURE_PUSHER_BONUS] = EvaluationWeights.CAPTURE_PUSHER_BONUS;
+        w[W_CAPTURE_NORMAL_BONUS] = EvaluationWeights.CAPTURE_NORMAL_BONUS;
+        w[W_CENTER_CONTROL_BONUS] = EvaluationWeights.CENTER_CONTROL_BONUS;
+        w[W_ADVANCEMENT_BONUS] = EvaluationWeights.ADVANCEMENT_BONUS;
+        w[W_PUSHER_MOBILITY_BONUS] = EvaluationWeights.PUSHER_MOBILITY_BONUS;
+        w[W_NEAR_GOAL_BONUS] = EvaluationWeights.NEAR_GOAL_BONUS;
+        w[W_PUSHER_BEHIND_PUSHED_BONUS] = EvaluationWeights.PUSHER_BEHIND_PUSHED_BONUS;
+        w[W_EDGE_COLUMN_PENALTY] = EvaluationWeights.EDGE_COLUMN_PENALTY;
+        w[W_CENTER_COLUMN_BONUS] = EvaluationWeights.CENTER_COLUMN_BONUS;
+        w[W_ENEMY_PUSHER_THREAT] = EvaluationWeights.ENEMY_PUSHER_THREAT;
+        w[W_ENEMY_PUSHED_THREAT] = EvaluationWeights.ENEMY_PUSHED_THREAT;
+        w[W_FORMATION_ADVANCE_BONUS] = EvaluationWeights.FORMATION_ADVANCE_BONUS;
+        w[W_PUSH_READY_BONUS] = EvaluationWeights.PUSH_READY_BONUS;
+        w[W_ADVANCED_PUSHER_BONUS] = EvaluationWeights.ADVANCED_PUSHER_BONUS;
+        for (int square = 0; square < 64; square++) {
+            w[W_PLACE_VALUE + square] = EvaluationWeights.PLACE_VALUE[square >> 3][square & 7];
         }
-        
-        return penalty;
-    }
-    
-    /**
-     * NEW: Checks if a piece at the given position can be captured by enemy pieces
-     */
-    private static boolean canBeCapturedByEnemy(char[][] board, int row, int col, boolean isRed) {
-        char enemyPusher = isRed ? 'B' : 'R';
-        
-        // Check all possible enemy piece positions that could capture this piece
-        // Pushers can move in any direction, pushed pieces can only be pushed
-        
-        // Check for enemy pushers that can move to capture this piece
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                if (board[r][c] == enemyPusher) {
-                    // Check if this enemy pusher can move to capture our piece
-                    if (canPusherMoveTo(r, c, row, col)) {
-                        return true;
-                    }
-                    
-                    // Check if this enemy pusher can push another piece to capture ours
-                    if (canPusherPushTo(board, r, c, row, col, !isRed)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        
-        return false;
-    }
-    
-    /**
-     * NEW: Checks if a pusher can move directly to the target position
-     */
-    private static boolean canPusherMoveTo(int fromRow, int fromCol, int toRow, int toCol) {
-        // Pushers can move one square in any direction (including diagonally)
-        int rowDiff = Math.abs(toRow - fromRow);
-        int colDiff = Math.abs(toCol - fromCol);
-        
-        return (rowDiff <= 1 && colDiff <= 1) && !(rowDiff == 0 && colDiff == 0);
-    }
-    
-    /**
-     * NEW: Checks if a pusher can push another piece to the target position
-     */
-    private static boolean canPusherPushTo(char[][] board, int pusherRow, int pusherCol, int targetRow, int targetCol, boolean enemyIsRed) {
-        char enemyPushed = enemyIsRed ? 'r' : 'b';
-        
-        // Check all 8 directions from the pusher
-        int[] dr = {-1, -1, -1, 0, 0, 1, 1, 1};
-        int[] dc = {-1, 0, 1, -1, 1, -1, 0, 1};
-        
-        for (int dir = 0; dir < 8; dir++) {
-            int pushedRow = pusherRow + dr[dir];
-            int pushedCol = pusherCol + dc[dir];
-            
-            // Check if there's a pushed piece here
-            if (pushedRow >= 0 && pushedRow < 8 && pushedCol >= 0 && pushedCol < 8) {
-                if (board[pushedRow][pushedCol] == enemyPushed) {
-                    // Check if pushing this piece would land it on the target
-                    int newRow = pushedRow + dr[dir];
-                    int newCol = pushedCol + dc[dir];
-                    
-                    if (newRow == targetRow && newCol == targetCol) {
-                        return true;
-                    }
-                }
-            }
-        }
-        
-        return false;
+        return w;
     }
 }
@@ -1,230 +1,201 @@
 import java.io.*;
-import java.net.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 
-class Client {
+/**
+ * Plays games on the tournament server.
+ *
+ * Usage: java Client [game-time-ms] [move-limit-ms]
+ * The server does not announce its time control, so the game clock and per-move limit
+ * come from the command line. Without a game clock, the client assumes the per-move
+ * limit for as many moves as a game can last.
+ */
+class Client implements ServerProtocol.Listener {
+    // The watchdog replies this long before the deadline of the game's TimeManager, after
+    // the search's own hard limit, so it only fires when the search has not answered in time
+    private static final long WATCHDOG_MARGIN_MS = 50;
+
+    private final Board board = new Board();
+    private final MiniMax miniMax = new MiniMax();
+    private final ServerProtocol protocol;
+    private final long gameTimeMs;
+    private final long moveLimitMs;
+    private final BufferedReader console = new BufferedReader(new InputStreamReader(System.in));
+    private String myColor = null; // Track which color this AI is playing
+    private TimeManager timeManager; // The current game's clock, shared with miniMax
+
+    // Whoever replies to a move request first, the search or the watchdog, sends the
+    // move; the other one finds sentMove set. Both guarded by this.
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "move-watchdog");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        return thread;
+    });
+    private int request;
+    private String sentMove;
+
+    private Client(ServerProtocol protocol, long gameTimeMs, long moveLimitMs) {
+        this.protocol = protocol;
+        this.gameTimeMs = gameTimeMs;
+        this.moveLimitMs = moveLimitMs;
+        miniMax.setThreads(Runtime.getRuntime().availableProcessors());
+        miniMax.setOpeningBook(OpeningBook.load(java.nio.file.Paths.get(OpeningBook.DEFAULT_FILE)));
+        miniMax.setTablebase(Tablebase.load(java.nio.file.Paths.get(Tablebase.DEFAULT_FILE)));
+    }
+
     public static void main(String[] args) {
-    Socket MyClient;
-    BufferedInputStream input;
-    BufferedOutputStream output;
-    Board board = new Board();
-    MiniMax miniMax = new MiniMax();
-    String myColor = null; // Track which color this AI is playing
-    
     try {
-        MyClient = new Socket("localhost", 8888);
-
-        input    = new BufferedInputStream(MyClient.getInputStream());
-        output   = new BufferedOutputStream(MyClient.getOutputStream());
-
-        BufferedReader console = new BufferedReader(new InputStreamReader(System.in));
-        
-        System.out.println("Connected to server. Waiting for commands...");
-        
-        while(true){
-            char cmd = 0;
-               
-            cmd = (char)input.read();
-            System.out.println("Received command: " + cmd);
-            
-            // Small delay to ensure all data is available
-            try {
-                Thread.sleep(50);
-            } catch (InterruptedException e) {
-                // Ignore
-            }
-            
-            // cmd == '1': Start new game as RED player
-            // Receives initial board state and finds best move using AI
-            if(cmd == '1'){
-    myColor = "red"; // Set our color
-    System.out.println("Playing as RED");
-    // Read the board configuration data
-    byte[] aBuffer = new byte[256];
-    int size = input.available();
-    if (size > 0) {
-        input.read(aBuffer, 0, size);
-        String boardData = new String(aBuffer, 0, size).trim();
-        System.out.println("Board data received: " + boardData);
-        board.parseBoardFromServer(boardData);
+        long moveLimitMs = args.length > 1 ? Long.parseLong(args[1]) : TimeManager.DEFAULT_MOVE_LIMIT_MS;
+        long gameTimeMs = args.length > 0 ? Long.parseLong(args[0]) : Board.MAX_MOVES_PER_SIDE * moveLimitMs;
+        ServerProtocol protocol = ServerProtocol.connect("localhost", 8888);
+        Log.info("Connected to server. Waiting for commands...");
+
+        // Commands are handled as soon as their payload has arrived, see ServerProtocol
+        protocol.run(new Client(protocol, gameTimeMs, moveLimitMs));
     }
-    board.setRedPlayer(true);
-    System.out.println("Finding best move for RED...");
-    String move = miniMax.findBestMove(board, "red");
-    System.out.println("Best move found: " + move);
-    
-    // NEW: Fallback to random move if no best move found
-    if (move == null) {
-        System.out.println("No best move found, selecting random legal move...");
-        
-        String[] possibleMoves = MoveGenerator.move("red", board);
-        if (possibleMoves != null && possibleMoves.length > 0) {
-            java.util.Random random = new java.util.Random();
-            move = possibleMoves[random.nextInt(possibleMoves.length)];
-            System.out.println("Random move selected: " + move);
-        } else {
-            System.err.println("ERROR: No moves available at all!");
-        }
+    catch (IOException e) {
+        Log.error(e, "Connection error: %s", e.getMessage());
     }
-    
-    if (move != null) {
-        board.makeMoveFromServer(move);
-        output.write(move.getBytes(), 0, move.length());
-        output.flush();
-        System.out.println("Move sent: " + move);
+    catch (Exception e) {
+        Log.error(e, "Unexpected error: %s", e.getMessage());
     }
-}
 
-// cmd == '2': Start new game as BLACK player
-// Receives initial board state and waits for Red to move first
-if(cmd == '2'){
-    myColor = "black"; // Set our color
-    System.out.println("Playing as BLACK - waiting for Red to move first");
-    // Read the board configuration data
-    byte[] aBuffer = new byte[256];
-    int size = input.available();
-    if (size > 0) {
-        input.read(aBuffer, 0, size);
-        String boardData = new String(aBuffer, 0, size).trim();
-        System.out.println("Board data received: " + boardData);
-        board.parseBoardFromServer(boardData);
     }
-    board.setRedPlayer(false);
-    System.out.println("Black player initialized. Waiting for Red's first move...");
-    // Black does NOT move immediately - waits for command 3 or 4 with Red's move
-}
 
-        // cmd == '3': Server requests next move (ongoing game)
-        // Receives opponent's last move and responds with AI move
-        if(cmd == '3'){
-        byte[] aBuffer = new byte[64]; // Increased buffer size
-                
-        int size = input.available();
-        if (size > 0) {
-            input.read(aBuffer, 0, Math.min(size, aBuffer.length));
-            String opponentMove = new String(aBuffer, 0, size).trim();
-            System.out.println("Opponent's move received: '" + opponentMove + "' (length=" + opponentMove.length() + ")");
-            
-            // Apply opponent's move to our board
-            if (!opponentMove.isEmpty()) {
-                boolean moveSuccess = board.makeMoveFromServer(opponentMove);
-                if (!moveSuccess) {
-                    System.out.println("WARNING: Failed to apply opponent move: " + opponentMove);
-                }
-            } else {
-                System.out.println("WARNING: Received empty opponent move!");
-            }
+    // cmd == '1': Start new game as RED player, receives initial board state and finds best move using AI
+    // cmd == '2': Start new game as BLACK player, receives initial board state and waits for Red to move first
+    @Override
+    public void onNewGame(boolean red, byte[] boardData, int length) throws IOException {
+        myColor = red ? "red" : "black"; // Set our color
+        Log.info(red ? "Playing as RED" : "Playing as BLACK - waiting for Red to move first");
+        miniMax.newGame();
+        timeManager = new TimeManager(gameTimeMs, moveLimitMs);
+        miniMax.setTimeManager(timeManager);
+
+        board.parseBoardFromServer(boardData, 0, length);
+        board.setRedPlayer(red);
+        Log.info("Board data received: %d pieces", Long.bitCount(board.getOccupied()));
+
+        if (red) {
+            playMove(System.currentTimeMillis());
+        } else {
+            // Black does NOT move immediately - waits for command 3 or 4 with Red's move
+            Log.info("Black player initialized. Waiting for Red's first move...");
         }
-        
+    }
+
+    // cmd == '3' or '4': Server requests next move, receives opponent's last move and responds with AI move
+    @Override
+    public void onMoveRequest(String opponentMove) throws IOException {
+        long requestTime = System.currentTimeMillis();
+        Log.info("Opponent's move received: '%s'", opponentMove);
+
+        // Apply opponent's move to our board
+        if (opponentMove.isEmpty()) {
+            Log.warn("Received empty opponent move!");
+        } else if (!board.makeMoveFromServer(opponentMove)) {
+            Log.warn("Failed to apply opponent move: %s", opponentMove);
+        }
+
         // Find our best move using our tracked color
         if (myColor == null) {
-            System.err.println("ERROR: myColor is null! This shouldn't happen.");
-            continue; // Skip this command and wait for proper initialization
+            Log.error("myColor is null! This shouldn't happen.");
+            return; // Skip this command and wait for proper initialization
+        }
+        playMove(requestTime);
+    }
+
+    // cmd == '5': Server requests next move with opponent's last move info, answered from user input
+    @Override
+    public void onManualMoveRequest(String lastMove) throws IOException {
+        miniMax.stopPondering();
+        Log.info("Opponent's move received: '%s'", lastMove);
+        for (String line; (line = console.readLine()) != null; ) {
+            String move = line.replaceAll("[\\s-]", "").toUpperCase();
+            if (move.matches("[A-H][1-8][A-H][1-8]")) {
+                protocol.send(move);
+                return;
+            }
+            Log.warn("Not a move: '%s', enter two squares such as D6 - D5", line);
+        }
+    }
+
+    private void playMove(long requestTime) throws IOException {
+        Log.info("Finding best move for %s...", myColor.toUpperCase());
+
+        // Arm the watchdog: if the search is not back by the deadline, it sends the best move so far
+        int current;
+        synchronized (this) {
+            current = ++request;
+            sentMove = null;
         }
-        System.out.println("Finding best move for " + myColor.toUpperCase() + "...");
-        
-        String move = miniMax.findBestMove(board, myColor);
-        System.out.println("Best move found: " + move);
-        
+        long deadline = timeManager.getDeadline(requestTime) - WATCHDOG_MARGIN_MS;
+        ScheduledFuture<?> alarm = watchdog.schedule(() -> replyAtDeadline(current),
+                Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+
+        String move = miniMax.findBestMove(board, myColor, requestTime, Long.MAX_VALUE);
+        alarm.cancel(false);
+        Log.info("Best move found: %s", move);
+
         // NEW: Fallback to random move if no best move found
         if (move == null) {
-            System.out.println("No best move found, selecting random legal move...");
-            
+            Log.info("No best move found, selecting random legal move...");
+
             String[] possibleMoves = MoveGenerator.move(myColor, board);
             if (possibleMoves != null && possibleMoves.length > 0) {
                 java.util.Random random = new java.util.Random();
                 move = possibleMoves[random.nextInt(possibleMoves.length)];
-                System.out.println("Random move selected: " + move);
+                Log.info("Random move selected: %s", move);
             } else {
-                System.err.println("ERROR: No moves available at all!");
-                continue; // Skip this turn
+                Log.error("No moves available at all!");
+                return; // Skip this turn
             }
         }
-        
-        if (move != null) {
-            board.makeMoveFromServer(move);
-            output.write(move.getBytes(), 0, move.length());
-            output.flush();
-            System.out.println("Move sent: " + move);
+
+        synchronized (this) {
+            if (sentMove == null) {
+                sentMove = move;
+                protocol.send(move);
+                Log.info("Move sent: %s", move);
+            } else {
+                Log.warn("Search finished after the deadline with %s, the watchdog already sent %s", move, sentMove);
+                move = sentMove;
+            }
         }
-                
-         }
-         
-            // cmd == '4': Server requests next move (ongoing game)
-            // Receives opponent's move and responds with AI move
-            if(cmd == '4'){
-                byte[] aBuffer = new byte[64]; // Increased buffer size
-                int size = input.available();
-                if (size > 0) {
-                    input.read(aBuffer, 0, Math.min(size, aBuffer.length));
-                    String opponentMove = new String(aBuffer, 0, size).trim();
-                    System.out.println("Opponent's move received: '" + opponentMove + "' (length=" + opponentMove.length() + ")");
-                          // Apply opponent's move to our board
-                if (!opponentMove.isEmpty()) {
-                    boolean moveSuccess = board.makeMoveFromServer(opponentMove);
-                    if (!moveSuccess) {
-                        System.out.println("WARNING: Failed to apply opponent move: " + opponentMove);
-                    }
-                } else {
-                    System.out.println("WARNING: Received empty opponent move!");
-                }
-                }
-                
-                // Find our best move using our tracked color
-                if (myColor == null) {
-                    System.err.println("ERROR: myColor is null! This shouldn't happen.");
-                    continue; // Skip this command and wait for proper initialization
-                }
-                System.out.println("Finding best move for " + myColor.toUpperCase() + "...");
-                
-                String move = miniMax.findBestMove(board, myColor);
-                System.out.println("Best move found: " + move);
-                
-                // NEW: Fallback to random move if no best move found
-                if (move == null) {
-                    System.out.println("No best move found, selecting random legal move...");
-                    
-                    String[] possibleMoves = MoveGenerator.move(myColor, board);
-                    if (possibleMoves != null && possibleMoves.length > 0) {
-                        java.util.Random random = new java.util.Random();
-                        move = possibleMoves[random.nextInt(possibleMoves.length)];
-                        System.out.println("Random move selected: " + move);
-                    } else {
-                        System.err.println("ERROR: No moves available at all!");
-                        continue; // Skip this turn
-                    }
-                }
-                
-                if (move != null) {
-                    board.makeMoveFromServer(move);
-                    output.write(move.getBytes(), 0, move.length());
-                    output.flush();
-                    System.out.println("Move sent: " + move);
-                }
-                
+        board.makeMoveFromServer(move);
+        if (Log.INFO) Log.info("%s", miniMax.getLastSearchStats().toJson(move));
+
+        // Think about our next move while the opponent thinks about theirs
+        miniMax.startPondering(board, myColor);
+    }
+
+    // Runs on the watchdog thread. The board is only read here: the search works on its
+    // own copy, and the move is played on it once the search returns.
+    private synchronized void replyAtDeadline(int expected) {
+        if (expected != request || sentMove != null) {
+            return; // The search answered in time
+        }
+        // At worst the search's first ordered root move; only a search that has not yet
+        // ordered them leaves nothing better than the first generated move
+        String move = miniMax.bestMoveSoFar(board);
+        if (move == null) {
+            String[] possibleMoves = MoveGenerator.move(myColor, board);
+            if (possibleMoves.length == 0) {
+                return;
             }
-            
-        // cmd == '5': Server requests next move with opponent's last move info
-        // Receives opponent's move data and waits for user input
-        if(cmd == '5'){
-                byte[] aBuffer = new byte[16];
-                int size = input.available();
-                input.read(aBuffer,0,size);
-        String move = console.readLine();
-        output.write(move.getBytes(),0,move.length());
-        output.flush();
-                
+            move = possibleMoves[0];
+            Log.warn("Nothing searched yet at the deadline, falling back to the first generated move");
         }
+        try {
+            protocol.send(move);
+            sentMove = move;
+            Log.warn("Search missed the deadline, watchdog sent best move so far: %s", move);
+        } catch (IOException e) {
+            Log.error(e, "Watchdog failed to send %s: %s", move, e.getMessage());
         }
     }
-    catch (IOException e) {
-        System.err.println("Connection error: " + e.getMessage());
-        e.printStackTrace();
-    }
-    catch (Exception e) {
-        System.err.println("Unexpected error: " + e.getMessage());
-        e.printStackTrace();
-    }
-    
-    }
 }
@@ -0,0 +1,230 @@
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs many games in one JVM. Each session is a connection to the game server with its
+ * own Board and single-threaded MiniMax, and does its protocol I/O with blocking reads on
+ * a virtual thread, so a thousand idle sessions cost a thousand parked threads and
+ * nothing else. On a JVM without virtual threads (before Java 21) sessions fall back to
+ * ordinary platform threads.
+ *
+ * The searches themselves run on one shared pool of platform threads, one per core.
+ * Waiting searches are served earliest deadline first, and each move's clock starts
+ * when its request arrives, not when a thread picks it up. When more searches wait
+ * than there are threads, a search that starts only gets its share of the time it has
+ * left (threads / (threads + waiting)), so the queue behind it still makes its deadlines.
+ * Sessions do not ponder, which would take pool threads from the others.
+ *
+ * After a game the session connects again for the next one, until the server refuses.
+ * A move request that would leave the board out of sync, without the opponent's move
+ * or with one that does not apply, is a protocol error: the session drops that game's
+ * connection and connects again.
+ * The opening book and tablebase, if present, are mapped once and shared.
+ *
+ * Usage: java EngineHost [sessions] [host] [port] [search-threads] [move-limit-ms]
+ */
+public class EngineHost {
+    private static final int DEFAULT_SESSIONS = 2;
+    private static final int HASH_MB = 16;
+
+    private final String host;
+    private final int port;
+    private final long moveLimitMs;
+    private final OpeningBook openingBook;
+    private final Tablebase tablebase;
+    private final int searchThreads;
+    private final ThreadPoolExecutor searchPool;
+    private final AtomicLong submitted = new AtomicLong(); // Tie-breaker for equal deadlines
+
+    EngineHost(String host, int port, int searchThreads, long moveLimitMs) {
+        this.host = host;
+        this.port = port;
+        this.moveLimitMs = moveLimitMs;
+        this.searchThreads = searchThreads;
+        this.openingBook = OpeningBook.load(Paths.get(OpeningBook.DEFAULT_FILE));
+        this.tablebase = Tablebase.load(Paths.get(Tablebase.DEFAULT_FILE));
+        this.searchPool = new ThreadPoolExecutor(searchThreads, searchThreads, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "host-search");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * A search waiting for a pool thread, ordered by deadline
+     */
+    private final class SearchTask extends FutureTask<String> implements Comparable<SearchTask> {
+        final long deadline;
+        final long sequence;
+
+        SearchTask(Session session, long requestTime) {
+            super(() -> session.search(requestTime));
+            this.deadline = requestTime + moveLimitMs;
+            this.sequence = submitted.getAndIncrement();
+        }
+
+        @Override
+        public int compareTo(SearchTask other) {
+            int byDeadline = Long.compare(deadline, other.deadline);
+            return byDeadline != 0 ? byDeadline : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * One connection to the server, playing one game at a time like Client
+     */
+    private final class Session implements ServerProtocol.Listener {
+        private final int id;
+        private final Board board = new Board();
+        private final MiniMax miniMax = new MiniMax(HASH_MB);
+        private ServerProtocol protocol;
+        private String color;
+
+        Session(int id) {
+            this.id = id;
+            miniMax.setThreads(1);
+            miniMax.setTimeManager(new TimeManager(TimeManager.UNLIMITED_GAME_TIME, moveLimitMs));
+            miniMax.setOpeningBook(openingBook);
+            miniMax.setTablebase(tablebase);
+        }
+
+        void run() {
+            for (int game = 1; ; game++) {
+                try {
+                    protocol = ServerProtocol.connectBlocking(host, port);
+                } catch (IOException e) {
+                    Log.info("session %d: server gone (%s), stopping", id, e.getMessage());
+                    return;
+                }
+                try {
+                    protocol.run(this);
+                    Log.info("session %d: game %d over", id, game);
+                } catch (IOException e) {
+                    Log.warn("session %d: game %d abandoned: %s", id, game, e.getMessage());
+                    closeQuietly();
+                }
+            }
+        }
+
+        @Override
+        public void onNewGame(boolean red, byte[] boardData, int length) throws IOException {
+            color = red ? "red" : "black";
+            miniMax.newGame();
+            board.parseBoardFromServer(boardData, 0, length);
+            board.setRedPlayer(red);
+            if (red) {
+                playMove(System.currentTimeMillis());
+            }
+        }
+
+        @Override
+        public void onMoveRequest(String opponentMove) throws IOException {
+            long requestTime = System.currentTimeMillis();
+            // Without the opponent's move the board is out of sync, and every search after it is wasted
+            if (opponentMove.isEmpty()) {
+                throw new IOException("move request without the opponent's move");
+            }
+            if (!board.makeMoveFromServer(opponentMove)) {
+                throw new IOException("opponent move " + opponentMove + " does not apply");
+            }
+            playMove(requestTime);
+        }
+
+        @Override
+        public void onManualMoveRequest(String lastMove) throws IOException {
+            onMoveRequest(lastMove); // No console here: the engine answers
+        }
+
+        private void playMove(long requestTime) throws IOException {
+            SearchTask task = new SearchTask(this, requestTime);
+            searchPool.execute(task);
+            String move;
+            try {
+                move = task.get(); // Parks the session's thread until a pool thread is done
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while searching", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Search failed", e.getCause());
+            }
+            if (move == null) {
+                String[] moves = MoveGenerator.move(color, board);
+                if (moves.length == 0) {
+                    Log.error("session %d: no moves available", id);
+                    return;
+                }
+                move = moves[0];
+            }
+            board.makeMoveFromServer(move);
+            protocol.send(move);
+            if (Log.DEBUG) Log.debug("session %d: %s", id, miniMax.getLastSearchStats().toJson(move));
+        }
+
+        private void closeQuietly() {
+            try {
+                protocol.close();
+            } catch (IOException e) {
+                Log.debug("session %d: close failed: %s", id, e.getMessage());
+            }
+        }
+
+        // Runs on a pool thread
+        String search(long requestTime) {
+            long now = System.currentTimeMillis();
+            long left = requestTime + moveLimitMs - now;
+            int waiting = searchPool.getQueue().size();
+            long share = left * searchThreads / (searchThreads + waiting);
+            return miniMax.findBestMove(board, color, requestTime, now - requestTime + share);
+        }
+    }
+
+    /**
+     * Start the sessions and wait until all of them have stopped
+     */
+    void run(int sessions) throws InterruptedException {
+        ExecutorService sessionThreads = sessionExecutor();
+        for (int i = 1; i <= sessions; i++) {
+            Session session = new Session(i);
+            sessionThreads.execute(session::run);
+        }
+        sessionThreads.shutdown();
+        sessionThreads.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        searchPool.shutdown();
+    }
+
+    /**
+     * A virtual thread per session where the JVM has them (Java 21), else a platform
+     * thread per session. Looked up reflectively so the host also runs on older JVMs.
+     */
+    static ExecutorService sessionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            Log.info("Sessions run on virtual threads");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            Log.info("No virtual threads in this JVM, sessions run on platform threads");
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SESSIONS;
+        String host = args.length > 1 ? args[1] : "localhost";
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : GameServer.DEFAULT_PORT;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long moveLimitMs = args.length > 4 ? Long.parseLong(args[4]) : TimeManager.DEFAULT_MOVE_LIMIT_MS;
+
+        Log.info("Hosting %d sessions against %s:%d with %d search threads", sessions, host, port, threads);
+        new EngineHost(host, port, threads, moveLimitMs).run(sessions);
+    }
+}
@@ -0,0 +1,363 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * Texel-style tuning of the evaluation weights (BoardEvaluation's weight vector).
+ *
+ * Positions are labelled with the result of the self-play game they came from. The
+ * tuner maps each evaluation to an expected score with a logistic curve whose scale K is
+ * fitted first, and then changes one weight at a time, keeping every change that lowers
+ * the mean squared error between expected scores and results. Steps shrink when neither
+ * direction helps. Mirrored place values (columns A/H, B/G, ...) move together. The
+ * evaluation fitted is BoardEvaluation.signedScore, without evaluate's base value and
+ * clamp, so a losing position maps to an expected score below one half.
+ *
+ * The positions live in two primitive arrays (four bitboards and one label byte each),
+ * and every error pass evaluates them in parallel with fork/join, through the same
+ * allocation-free code as the engine (BoardEvaluation's bitboard evaluation).
+ *
+ * Position file format (big-endian): the int MAGIC, the int count, then per position the
+ * red pusher, red pushed, black pusher and black pushed bitboards and a label byte: bit 0
+ * set if red is to move, bits 1-2 the result for red (0 loss, 1 draw, 2 win).
+ *
+ * Usage:
+ *   java EvalTuner generate [file] [games] [depth]    label positions by self-play
+ *   java EvalTuner tune [file] [output] [passes]      write the tuned EvaluationWeights.java
+ */
+public class EvalTuner {
+    public static final String DEFAULT_FILE = "positions.bin";
+    public static final String DEFAULT_OUTPUT = "EvaluationWeights.java";
+
+    private static final int MAGIC = 0x50534E31; // "PSN1"
+    private static final int DEFAULT_GAMES = 2000;
+    private static final int DEFAULT_DEPTH = 4;
+    private static final int DEFAULT_PASSES = 30;
+    private static final int HASH_MB = 4;
+    private static final int CHUNK = 4096; // Positions per fork/join leaf task
+
+    // Positions: bitboards[4 * i .. 4 * i + 3] and labels[i]
+    private long[] bitboards = new long[4 * 1024];
+    private byte[] labels = new byte[1024];
+    private int size;
+
+    private synchronized void add(long[] gameBitboards, boolean[] redToMove, int count, int redResult) {
+        if (size + count > labels.length) {
+            int capacity = Math.max(2 * labels.length, size + count);
+            bitboards = Arrays.copyOf(bitboards, 4 * capacity);
+            labels = Arrays.copyOf(labels, capacity);
+        }
+        System.arraycopy(gameBitboards, 0, bitboards, 4 * size, 4 * count);
+        for (int i = 0; i < count; i++) {
+            labels[size + i] = (byte) ((redToMove[i] ? 1 : 0) | (redResult << 1));
+        }
+        size += count;
+    }
+
+    /**
+     * Play self-play games from random openings at a fixed depth, in parallel, and keep
+     * every quiet position (no capture for the side to move) with the game's result
+     */
+    static EvalTuner generate(int games, int depth) {
+        EvalTuner positions = new EvalTuner();
+        ThreadLocal<MiniMax> engines = ThreadLocal.withInitial(() -> {
+            MiniMax miniMax = new MiniMax(HASH_MB);
+            miniMax.setThreads(1);
+            miniMax.setDepthLimit(depth);
+            return miniMax;
+        });
+
+        IntStream.range(0, games).parallel().forEach(game -> {
+            MiniMax miniMax = engines.get();
+            miniMax.newGame();
+            Board board = Arena.randomOpening(new SplittableRandom(game));
+            int maxPlies = 2 * Board.MAX_MOVES_PER_SIDE;
+            long[] gameBitboards = new long[4 * maxPlies];
+            boolean[] redToMove = new boolean[maxPlies];
+            int[] captures = new int[MoveGenerator.MAX_MOVES];
+            int count = 0;
+
+            while (!board.isGameOver()) {
+                boolean red = board.isRedToMove();
+                if (MoveGenerator.generateCaptures(board, red, captures) == 0) {
+                    gameBitboards[4 * count] = board.getBitboard(Board.RED_PUSHER);
+                    gameBitboards[4 * count + 1] = board.getBitboard(Board.RED_PUSHED);
+                    gameBitboards[4 * count + 2] = board.getBitboard(Board.BLACK_PUSHER);
+                    gameBitboards[4 * count + 3] = board.getBitboard(Board.BLACK_PUSHED);
+                    redToMove[count++] = red;
+                }
+                String move = miniMax.findBestMove(board, red ? "red" : "black");
+                if (move == null || !board.makeMoveFromServer(move)) {
+                    break; // No moves: a draw
+                }
+            }
+            String winner = board.isGameOver() ? board.getWinner() : null;
+            positions.add(gameBitboards, redToMove, count, "Red".equals(winner) ? 2 : "Black".equals(winner) ? 0 : 1);
+        });
+        return positions;
+    }
+
+    void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < 4; j++) {
+                    out.writeLong(bitboards[4 * i + j]);
+                }
+                out.writeByte(labels[i]);
+            }
+        }
+    }
+
+    static EvalTuner read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a position file: " + file);
+            }
+            EvalTuner positions = new EvalTuner();
+            int count = in.readInt();
+            positions.bitboards = new long[4 * count];
+            positions.labels = new byte[count];
+            for (int i = 0; i < count; i++) {
+                for (int j = 0; j < 4; j++) {
+                    positions.bitboards[4 * i + j] = in.readLong();
+                }
+                positions.labels[i] = in.readByte();
+            }
+            positions.size = count;
+            return positions;
+        }
+    }
+
+    /**
+     * Sum of squared errors over positions from..to-1, split across the fork/join pool
+     */
+    private final class ErrorTask extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int[] weights;
+        private final int[][] redTable;
+        private final int[][] blackTable;
+        private final double k;
+
+        ErrorTask(int from, int to, int[] weights, int[][] redTable, int[][] blackTable, double k) {
+            this.from = from;
+            this.to = to;
+            this.weights = weights;
+            this.redTable = redTable;
+            this.blackTable = blackTable;
+            this.k = k;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from > CHUNK) {
+                int mid = (from + to) >>> 1;
+                ErrorTask left = new ErrorTask(from, mid, weights, redTable, blackTable, k);
+                left.fork();
+                double right = new ErrorTask(mid, to, weights, redTable, blackTable, k).compute();
+                return right + left.join();
+            }
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                boolean red = (labels[i] & 1) != 0;
+                double redResult = (labels[i] >> 1) / 2.0;
+                double result = red ? redResult : 1 - redResult;
+                double error = result - expectedScore(i, red ? redTable : blackTable, red, weights, k);
+                sum += error * error;
+            }
+            return sum;
+        }
+    }
+
+    private double expectedScore(int i, int[][] table, boolean red, int[] weights, double k) {
+        long redPushers = bitboards[4 * i];
+        long redPushed = bitboards[4 * i + 1];
+        long blackPushers = bitboards[4 * i + 2];
+        long blackPushed = bitboards[4 * i + 3];
+        int pieceSquareScore = sum(table[Board.RED_PUSHER], redPushers) + sum(table[Board.RED_PUSHED], redPushed)
+                + sum(table[Board.BLACK_PUSHER], blackPushers) + sum(table[Board.BLACK_PUSHED], blackPushed);
+        int eval = BoardEvaluation.signedScore(redPushers, redPushed, blackPushers, blackPushed, pieceSquareScore, red, weights);
+        return 1 / (1 + Math.exp(-k * eval));
+    }
+
+    private static int sum(int[] values, long squares) {
+        int total = 0;
+        for (; squares != 0; squares &= squares - 1) {
+            total += values[Long.numberOfTrailingZeros(squares)];
+        }
+        return total;
+    }
+
+    /**
+     * Mean squared error of the weights' expected scores against the game results
+     */
+    double error(int[] weights, double k) {
+        ErrorTask task = new ErrorTask(0, size, weights, BoardEvaluation.pieceSquareTable(true, weights),
+                BoardEvaluation.pieceSquareTable(false, weights), k);
+        return ForkJoinPool.commonPool().invoke(task) / size;
+    }
+
+    /**
+     * The logistic scale that fits the results best for the given weights: a coarse scan
+     * over powers of ten, then a ternary search around the best
+     */
+    double fitScale(int[] weights) {
+        double bestExponent = -8;
+        double bestError = Double.MAX_VALUE;
+        for (double exponent = -8; exponent <= -1; exponent += 0.25) {
+            double error = error(weights, Math.pow(10, exponent));
+            if (error < bestError) {
+                bestError = error;
+                bestExponent = exponent;
+            }
+        }
+        double low = bestExponent - 0.25;
+        double high = bestExponent + 0.25;
+        for (int i = 0; i < 30; i++) {
+            double a = low + (high - low) / 3;
+            double b = high - (high - low) / 3;
+            if (error(weights, Math.pow(10, a)) < error(weights, Math.pow(10, b))) {
+                high = b;
+            } else {
+                low = a;
+            }
+        }
+        return Math.pow(10, (low + high) / 2);
+    }
+
+    /**
+     * Local search from the given weights
+     * @return The tuned weights
+     */
+    int[] tune(int[] start, double k, int passes) {
+        int[] weights = start.clone();
+        int[] steps = new int[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            steps[i] = Math.max(1, Math.abs(weights[i]) / 8);
+        }
+        double bestError = error(weights, k);
+
+        for (int pass = 1; pass <= passes; pass++) {
+            boolean improved = false;
+            boolean moving = false;
+            for (int i = 0; i < weights.length; i++) {
+                int mirror = mirrorOf(i);
+                if (mirror < i) continue; // Tuned together with its mirror
+                boolean accepted = false;
+                for (int sign = 1; sign >= -1 && !accepted; sign -= 2) {
+                    int delta = sign * steps[i];
+                    weights[i] += delta;
+                    if (mirror != i) weights[mirror] += delta;
+                    double error = error(weights, k);
+                    if (error < bestError) {
+                        bestError = error;
+                        accepted = true;
+                    } else {
+                        weights[i] -= delta;
+                        if (mirror != i) weights[mirror] -= delta;
+                    }
+                }
+                if (accepted) {
+                    improved = true;
+                } else {
+                    steps[i] = Math.max(1, steps[i] / 2);
+                }
+                moving |= accepted || steps[i] > 1;
+            }
+            System.out.println(String.format(Locale.ROOT, "pass %d: error %.6f", pass, bestError));
+            if (!improved && !moving) break;
+        }
+        return weights;
+    }
+
+    // The place value mirrored across the board's vertical axis, or the index itself
+    private static int mirrorOf(int index) {
+        if (index < BoardEvaluation.W_PLACE_VALUE) return index;
+        int square = index - BoardEvaluation.W_PLACE_VALUE;
+        return BoardEvaluation.W_PLACE_VALUE + (square & ~7) + (7 - (square & 7));
+    }
+
+    /**
+     * Write the weights as the source of EvaluationWeights
+     */
+    static void writeWeights(Path file, int[] weights, String source) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("/**");
+            out.println(" * Weights of BoardEvaluation, generated by EvalTuner. Retune rather than edit by hand.");
+            out.println(" *");
+            out.println(" * Source: " + source);
+            out.println(" */");
+            out.println("final class EvaluationWeights {");
+            for (int i = 0; i < BoardEvaluation.WEIGHT_NAMES.length; i++) {
+                out.println("    static final int " + BoardEvaluation.WEIGHT_NAMES[i] + " = " + weights[i] + ";");
+            }
+            out.println();
+            out.println("    // From red's point of view, row 0 (rank 8) is red's goal; black uses the mirror image");
+            out.println("    static final int[][] PLACE_VALUE = {");
+            for (int row = 0; row < 8; row++) {
+                StringBuilder line = new StringBuilder("        {");
+                for (int col = 0; col < 8; col++) {
+                    if (col > 0) line.append(", ");
+                    line.append(weights[BoardEvaluation.W_PLACE_VALUE + row * 8 + col]);
+                }
+                out.println(line.append("},"));
+            }
+            out.println("    };");
+            out.println();
+            out.println("    private EvaluationWeights() {");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String command = args.length > 0 ? args[0] : "";
+        Path file = Paths.get(args.length > 1 ? args[1] : DEFAULT_FILE);
+
+        if (command.equals("generate")) {
+            int games = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_GAMES;
+            int depth = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_DEPTH;
+            long start = System.currentTimeMillis();
+            EvalTuner positions = generate(games, depth);
+            positions.write(file);
+            System.out.println("Wrote " + positions.size + " positions from " + games + " games to " + file
+                    + " in " + (System.currentTimeMillis() - start) + " ms");
+        } else if (command.equals("tune")) {
+            Path output = Paths.get(args.length > 2 ? args[2] : DEFAULT_OUTPUT);
+            int passes = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_PASSES;
+            EvalTuner positions = read(file);
+            System.out.println(positions.size + " positions");
+
+            int[] start = BoardEvaluation.DEFAULT_WEIGHTS;
+            double k = positions.fitScale(start);
+            double startError = positions.error(start, k);
+            System.out.println(String.format(Locale.ROOT, "K = %.3e, error %.6f", k, startError));
+
+            int[] tuned = positions.tune(start, k, passes);
+            double tunedError = positions.error(tuned, k);
+            writeWeights(output, tuned, String.format(Locale.ROOT, "%d positions from %s, error %.6f (was %.6f)",
+                    positions.size, file.getFileName(), tunedError, startError));
+            System.out.println("Wrote " + output);
+        } else {
+            System.err.println("Usage: java EvalTuner generate [file] [games] [depth]");
+            System.err.println("       java EvalTuner tune [file] [output] [passes]");
+            System.exit(2);
+        }
+    }
+}
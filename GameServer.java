@@ -0,0 +1,185 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Local stand-in for the tournament server, speaking the protocol ServerProtocol reads:
+ * '1' or '2' with the starting board to open the game, then '3' with the opponent's
+ * last move ("D6 - D5") whenever it is a player's turn. Replies are moves in server
+ * format ("D6D5"). Each move is checked against the generated moves; an illegal move,
+ * a closed connection or a move later than the timeout loses the game. The game ends
+ * when a piece reaches the far row, a side has lost its pushers, or the side to move
+ * has no moves (a draw). Both connections are closed at the end.
+ *
+ * Usage: java GameServer [port] [move-limit-ms]
+ * Pairs connections as they arrive: the first of each pair plays red.
+ */
+public class GameServer {
+    public static final int DEFAULT_PORT = 8888;
+
+    // A move this many times over the limit (and at least the minimum) forfeits the game
+    private static final int TIMEOUT_FACTOR = 10;
+    private static final int MIN_TIMEOUT_MS = 5000;
+
+    /**
+     * Outcome of one game, with the time each reply took as seen by the server
+     */
+    static class Result {
+        static final int RED_WIN = 1;
+        static final int DRAW = 0;
+        static final int BLACK_WIN = -1;
+
+        int outcome = DRAW;
+        String reason;
+        int plies;
+        int lateMoves; // Replies over the move limit
+        final long[][] latencyMs = new long[2][Board.MAX_MOVES_PER_SIDE]; // [red/black][move]
+        final int[] moves = new int[2];
+
+        String describe() {
+            String winner = outcome == RED_WIN ? "red wins" : outcome == BLACK_WIN ? "black wins" : "draw";
+            return winner + " (" + reason + ") after " + plies + " plies";
+        }
+
+        private void record(boolean red, long ms) {
+            int side = red ? 0 : 1;
+            if (moves[side] < latencyMs[side].length) {
+                latencyMs[side][moves[side]++] = ms;
+            }
+        }
+    }
+
+    /**
+     * Play one game between two connected clients
+     * @param opening The starting position, red to move (the board payload carries no side)
+     * @param moveLimitMs The per-move limit; later replies are counted as late
+     */
+    static Result play(Socket red, Socket black, Board opening, long moveLimitMs) throws IOException {
+        Socket[] players = { red, black };
+        int timeoutMs = (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_TIMEOUT_MS, TIMEOUT_FACTOR * moveLimitMs));
+        for (Socket player : players) {
+            player.setTcpNoDelay(true);
+            player.setSoTimeout(timeoutMs);
+        }
+
+        Result result = new Result();
+        Board board = new Board();
+        board.copyFrom(opening);
+        int[] legal = new int[MoveGenerator.MAX_MOVES];
+        try {
+            String position = board.getBoardConfiguration();
+            send(red, "1" + position);
+            send(black, "2" + position);
+
+            String lastMove = null;
+            while (true) {
+                boolean redToMove = board.isRedToMove();
+                if (board.isGameOver()) {
+                    result.outcome = "Red".equals(board.getWinner()) ? Result.RED_WIN : Result.BLACK_WIN;
+                    result.reason = board.hasWinner() ? "reached the far row" : "no pushers left";
+                    break;
+                }
+                int count = MoveGenerator.generate(board, redToMove, legal);
+                if (count == 0) {
+                    result.reason = (redToMove ? "red" : "black") + " has no moves";
+                    break;
+                }
+
+                Socket player = redToMove ? red : black;
+                long start = System.nanoTime();
+                if (lastMove != null) {
+                    send(player, "3" + lastMove.substring(0, 2) + " - " + lastMove.substring(2));
+                }
+                String reply;
+                try {
+                    reply = readMove(player.getInputStream());
+                } catch (IOException e) { // Timed out or disconnected
+                    reply = null;
+                }
+                long ms = (System.nanoTime() - start) / 1_000_000;
+
+                int move = Board.Move.NONE;
+                for (int i = 0; reply != null && i < count; i++) {
+                    if (Board.Move.toServerFormat(legal[i]).equals(reply)) {
+                        move = legal[i];
+                    }
+                }
+                if (move == Board.Move.NONE) {
+                    result.outcome = redToMove ? Result.BLACK_WIN : Result.RED_WIN;
+                    result.reason = (redToMove ? "red " : "black ") + (reply == null ? "sent no move" : "played illegal move " + reply);
+                    break;
+                }
+
+                result.record(redToMove, ms);
+                if (ms > moveLimitMs) {
+                    result.lateMoves++;
+                }
+                board.makeMove(move);
+                result.plies++;
+                lastMove = reply;
+            }
+        } finally {
+            red.close();
+            black.close();
+        }
+        return result;
+    }
+
+    private static void send(Socket socket, String message) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(message.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    /**
+     * Read a move: four coordinates, file letter and rank digit alternating, skipping
+     * anything in between
+     * @return The move in server format, or null if the connection was closed
+     */
+    private static String readMove(InputStream in) throws IOException {
+        char[] move = new char[4];
+        int length = 0;
+        while (length < move.length) {
+            int b = in.read();
+            if (b < 0) {
+                return null;
+            }
+            char c = Character.toUpperCase((char) b);
+            boolean file = (length & 1) == 0;
+            if ((file && c >= 'A' && c <= 'H') || (!file && c >= '1' && c <= '8')) {
+                move[length++] = c;
+            }
+        }
+        return new String(move);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        long moveLimitMs = args.length > 1 ? Long.parseLong(args[1]) : TimeManager.DEFAULT_MOVE_LIMIT_MS;
+
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            Log.info("Listening on port %d", port);
+            for (int game = 1; ; game++) {
+                Socket red = server.accept();
+                Log.info("Game %d: red connected", game);
+                Socket black = server.accept();
+                Log.info("Game %d: black connected", game);
+
+                int number = game;
+                Thread thread = new Thread(() -> {
+                    try {
+                        Result result = play(red, black, new Board(), moveLimitMs);
+                        Log.info("Game %d: %s, %d late moves", number, result.describe(), result.lateMoves);
+                    } catch (IOException e) {
+                        Log.error("Game %d failed: %s", number, e.getMessage());
+                    }
+                }, "game-" + game);
+                thread.start();
+            }
+        }
+    }
+}
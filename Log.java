@@ -0,0 +1,85 @@
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Leveled diagnostics. The level is read once from the system property "log.level"
+ * (trace, debug, info, warn, error or off; default info) into static final fields, so
+ * a guard such as
+ *
+ *   if (Log.TRACE) Log.trace("%s has no moves", square);
+ *
+ * is a constant the JIT folds away when the level is disabled: the hot path pays
+ * nothing, not even for building the arguments. Messages are java.util.Formatter
+ * patterns and are only formatted when their level is enabled.
+ *
+ * Trace is the verbose mode for debugging rule disputes, e.g. MoveGenerator.move
+ * explains why each piece has no moves. Run with -Dlog.level=trace to turn it on.
+ */
+final class Log {
+    static final int LEVEL_TRACE = 0;
+    static final int LEVEL_DEBUG = 1;
+    static final int LEVEL_INFO = 2;
+    static final int LEVEL_WARN = 3;
+    static final int LEVEL_ERROR = 4;
+    static final int LEVEL_OFF = 5;
+
+    static final int LEVEL = parseLevel(System.getProperty("log.level", "info"));
+
+    static final boolean TRACE = LEVEL <= LEVEL_TRACE;
+    static final boolean DEBUG = LEVEL <= LEVEL_DEBUG;
+    static final boolean INFO = LEVEL <= LEVEL_INFO;
+    static final boolean WARN = LEVEL <= LEVEL_WARN;
+    static final boolean ERROR = LEVEL <= LEVEL_ERROR;
+
+    private Log() {
+    }
+
+    static void trace(String format, Object... args) {
+        if (TRACE) write(System.out, "TRACE: ", format, args);
+    }
+
+    static void debug(String format, Object... args) {
+        if (DEBUG) write(System.out, "DEBUG: ", format, args);
+    }
+
+    static void info(String format, Object... args) {
+        if (INFO) write(System.out, "", format, args);
+    }
+
+    static void warn(String format, Object... args) {
+        if (WARN) write(System.err, "WARNING: ", format, args);
+    }
+
+    static void error(String format, Object... args) {
+        if (ERROR) write(System.err, "ERROR: ", format, args);
+    }
+
+    /**
+     * Log an error with the stack trace of its cause
+     */
+    static void error(Throwable cause, String format, Object... args) {
+        if (ERROR) {
+            write(System.err, "ERROR: ", format, args);
+            cause.printStackTrace();
+        }
+    }
+
+    private static void write(PrintStream out, String prefix, String format, Object[] args) {
+        String message = args.length == 0 ? format : String.format(Locale.ROOT, format, args);
+        out.println(prefix + message);
+    }
+
+    private static int parseLevel(String name) {
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "trace": return LEVEL_TRACE;
+            case "debug": return LEVEL_DEBUG;
+            case "info": return LEVEL_INFO;
+            case "warn": return LEVEL_WARN;
+            case "error": return LEVEL_ERROR;
+            case "off": return LEVEL_OFF;
+            default:
+                System.err.println("Unknown log.level '" + name + "', using info");
+                return LEVEL_INFO;
+        }
+    }
+}
@@ -1,16 +1,154 @@
-import java.util.Random;
-import java.util.List;
-import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class MiniMax {
-    private static final int MAX_DEPTH = 3; // Reduced to 3 for faster response
-    private static final long TIME_LIMIT = 1000; // 1 second for much faster response
-    private static final int POSITIVE_INFINITY = 1000000;
-    private static final int NEGATIVE_INFINITY = -1000000;
+    private static final int DEFAULT_HASH_SIZE_MB = 64;
     
-    private long startTime;
-    private boolean timeUp;
-    private Random random;
+    // Shared by every search worker. The table is written without locks: each entry
+    // carries a checksum, so a torn write only ever reads back as a miss.
+    TranspositionTable transpositionTable;
+    TimeManager timeManager = new TimeManager();
+    int depthLimit = 0; // 0 = keep deepening until the time manager stops us
+    
+    // Selective search techniques, each on by default and switchable for measurement
+    boolean nullMovePruning = true;
+    boolean lateMoveReductions = true;
+    boolean futilityPruning = true;
+    volatile boolean stopped;
+    volatile boolean pondering; // Searching on the opponent's time, the clock is not running
+    
+    // Worker 0 searches on the calling thread, the others on helper threads
+    private SearchWorker[] workers = { new SearchWorker(this, 0) };
+    private ExecutorService helpers;
+    
+    // Totals over all workers for the last findBestMove
+    private final SearchStats lastStats = new SearchStats();
+    
+    // Best move of the running search so far: the move in the low 32 bits, the high 32
+    // bits of its root position's hash in the high bits, so one volatile read gets both
+    private volatile long bestSoFar;
+    
+    private OpeningBook openingBook;
+    Tablebase tablebase; // Probed by the workers at the root and at the leaves
+    
+    // Background search of the position after the expected opponent reply
+    private ExecutorService ponderThread;
+    private Future<String> ponderSearch;
+    private final Board ponderBoard = new Board();
+    private boolean ponderRed;
+    
+    public MiniMax() {
+        this(DEFAULT_HASH_SIZE_MB);
+    }
+    
+    /**
+     * @param hashSizeMb Size of the transposition table in megabytes
+     */
+    public MiniMax(int hashSizeMb) {
+        transpositionTable = new TranspositionTable(hashSizeMb);
+    }
+    
+    /**
+     * Replace the transposition table with an empty one of the given size
+     */
+    public void setHashSize(int hashSizeMb) {
+        transpositionTable = new TranspositionTable(hashSizeMb);
+    }
+    
+    /**
+     * Use a time manager configured with the game's clock
+     */
+    public void setTimeManager(TimeManager timeManager) {
+        this.timeManager = timeManager;
+    }
+    
+    /**
+     * Stop iterative deepening at this depth (0 = no limit, only the clock stops the search)
+     */
+    public void setDepthLimit(int depthLimit) {
+        this.depthLimit = depthLimit;
+    }
+    
+    /**
+     * Play book moves while the position is in the book (null to turn the book off)
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+    
+    /**
+     * Use endgame tablebases for positions with few pieces (null to turn them off)
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+    
+    public void setNullMovePruning(boolean enabled) {
+        this.nullMovePruning = enabled;
+    }
+    
+    public void setLateMoveReductions(boolean enabled) {
+        this.lateMoveReductions = enabled;
+    }
+    
+    public void setFutilityPruning(boolean enabled) {
+        this.futilityPruning = enabled;
+    }
+    
+    /**
+     * Number of threads searching each position (Lazy SMP). Helper threads share
+     * the transposition table with the main thread and start at staggered depths.
+     */
+    public void setThreads(int threads) {
+        stopPondering();
+        threads = Math.max(1, threads);
+        if (threads == workers.length) return;
+        
+        if (helpers != null) {
+            helpers.shutdownNow();
+            helpers = null;
+        }
+        workers = new SearchWorker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new SearchWorker(this, i);
+        }
+        if (threads > 1) {
+            helpers = Executors.newFixedThreadPool(threads - 1, task -> {
+                Thread thread = new Thread(task, "search-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+    
+    public int getThreads() {
+        return workers.length;
+    }
+    
+    /**
+     * Nodes visited by all workers during the last findBestMove
+     */
+    public long getLastSearchNodes() {
+        return lastStats.nodes;
+    }
+    
+    /**
+     * Statistics of the last findBestMove. The object is reused by the next search.
+     */
+    SearchStats getLastSearchStats() {
+        return lastStats;
+    }
+    
+    /**
+     * Forget everything learned in the previous game and reset the game clock
+     */
+    public void newGame() {
+        stopPondering();
+        transpositionTable.clear();
+        timeManager.newGame();
+    }
     
     /**
      * Find the best move using minimax with alpha-beta pruning and time limit
@@ -19,365 +157,226 @@ public class MiniMax {
      * @return The best move in string format (e.g., "A7A6")
      */
     public String findBestMove(Board board, String color) {
-        startTime = System.currentTimeMillis();
-        timeUp = false;
-        random = new Random();
-        
-        String bestMove = null;
-        
-        // Get all possible moves for the current player
-        String[] possibleMoves = MoveGenerator.move(color, board);
-        
-        if (possibleMoves.length == 0) {
-            return null; // No moves available
-        }
-        
-        // If only one move, return it immediately
-        if (possibleMoves.length == 1) {
-            return possibleMoves[0];
-        }
-        
-        // Order moves to prioritize pusher moves and advancement
-        possibleMoves = orderMoves(possibleMoves, board, color);
-        
-        // IMMEDIATE SAFETY CHECK: Return safe captures instantly for maximum efficiency
-        for (String moveStr : possibleMoves) {
-            Board.Move move = board.parseMove(moveStr);
-            if (move != null) {
-                int targetPiece = board.getPiece(move.toRow, move.toCol);
-                
-                // Check for captures first
-                if (targetPiece != Board.EMPTY) {
-                    // Quick safety check - if capture is safe, return immediately
-                    if (!willBeExposedToCapture(board, move, color)) {
-                        return moveStr; // Return immediately for efficiency!
-                    }
-                }
-                
-                // Check for winning moves
-                Board tempBoard = copyBoard(board);
-                if (tempBoard.makeMove(move) && tempBoard.hasWinner()) {
-                    String winner = tempBoard.getWinner();
-                    if ((color.equalsIgnoreCase("red") && "Red".equals(winner)) ||
-                        (color.equalsIgnoreCase("black") && "Black".equals(winner))) {
-                        return moveStr; // Return winning move immediately!
-                    }
-                }
-            }
-        }
-        
-        // Simplified iterative deepening - start with depth 2 for speed
-        for (int depth = 2; depth <= MAX_DEPTH && !timeUp; depth++) {
-            String currentBestMove = null;
-            int currentBestScore = NEGATIVE_INFINITY;
-            
-            for (String moveStr : possibleMoves) {
-                if (timeUp) break;
-                
-                // Make a copy of the board and apply the move
-                Board tempBoard = copyBoard(board);
-                Board.Move move = tempBoard.parseMove(moveStr);
-                
-                if (move != null && tempBoard.makeMove(move)) {
-                    // Get the opponent's color
-                    String opponentColor = color.equalsIgnoreCase("red") ? "black" : "red";
-                    
-                    // Evaluate this move using minimax
-                    int score = minimax(tempBoard, depth - 1, NEGATIVE_INFINITY, POSITIVE_INFINITY, 
-                                      false, opponentColor, color);
-                    
-                    // Add small random factor to break ties and avoid repetition
-                    score += random.nextInt(3) - 1; // -1, 0, or 1
-                    
-                    if (score > currentBestScore) {
-                        currentBestScore = score;
-                        currentBestMove = moveStr;
-                    }
-                }
-            }
-            
-            // If we completed this depth without timing out, update best move
-            if (!timeUp && currentBestMove != null) {
-                bestMove = currentBestMove;
-            }
-        }
-        
-        return bestMove != null ? bestMove : possibleMoves[0];
+        return findBestMove(board, color, System.currentTimeMillis(), Long.MAX_VALUE);
     }
     
     /**
-     * Minimax algorithm with alpha-beta pruning
-     * @param board Current board state
-     * @param depth Remaining search depth
-     * @param alpha Alpha value for pruning
-     * @param beta Beta value for pruning
-     * @param isMaximizing True if maximizing player, false if minimizing
-     * @param currentColor Color of current player to move
-     * @param originalColor Color of the original player (for evaluation)
-     * @return The evaluation score
+     * findBestMove for a search that may have been queued: the move's clock started when
+     * the request arrived, and at most maxMoveMs of it (counted from then) may be used
      */
-    private int minimax(Board board, int depth, int alpha, int beta, boolean isMaximizing, 
-                       String currentColor, String originalColor) {
-        
-        // Check time limit
-        if (System.currentTimeMillis() - startTime > TIME_LIMIT) {
-            timeUp = true;
-            return 0;
-        }
-        
-        // Base case: depth 0 or game over
-        if (depth == 0 || board.isGameOver() || timeUp) {
-            return evaluatePosition(board, originalColor);
-        }
-        
-        // Get all possible moves for current player
-        String[] possibleMoves = MoveGenerator.move(currentColor, board);
-        
-        if (possibleMoves.length == 0) {
-            // No moves available - evaluate current position
-            return evaluatePosition(board, originalColor);
-        }
-        
-        // Order moves for better alpha-beta pruning
-        possibleMoves = orderMoves(possibleMoves, board, currentColor);
-        
-        if (isMaximizing) {
-            int maxEval = NEGATIVE_INFINITY;
-            
-            for (String moveStr : possibleMoves) {
-                if (timeUp) break;
-                
-                // Make a copy of the board and apply the move
-                Board tempBoard = copyBoard(board);
-                Board.Move move = tempBoard.parseMove(moveStr);
-                
-                if (move != null && tempBoard.makeMove(move)) {
-                    String nextColor = currentColor.equalsIgnoreCase("red") ? "black" : "red";
-                    int eval = minimax(tempBoard, depth - 1, alpha, beta, false, nextColor, originalColor);
-                    
-                    maxEval = Math.max(maxEval, eval);
-                    alpha = Math.max(alpha, eval);
-                    
-                    // Alpha-beta pruning
-                    if (beta <= alpha) {
-                        break;
-                    }
+    public String findBestMove(Board board, String color, long requestTimeMs, long maxMoveMs) {
+        boolean isRed = color.equalsIgnoreCase("red");
+        timeManager.startMove(requestTimeMs, maxMoveMs);
+        try {
+            if (openingBook != null && board.isRedToMove() == isRed) {
+                int bookMove = openingBook.probe(board);
+                if (bookMove != Board.Move.NONE) {
+                    stopPondering();
+                    publishBestMove(board.getHash(), bookMove);
+                    lastStats.reset();
+                    lastStats.source = SearchStats.SOURCE_BOOK;
+                    return Board.Move.toServerFormat(bookMove);
                 }
             }
-            return maxEval;
-            
-        } else {
-            int minEval = POSITIVE_INFINITY;
             
-            for (String moveStr : possibleMoves) {
-                if (timeUp) break;
-                
-                // Make a copy of the board and apply the move
-                Board tempBoard = copyBoard(board);
-                Board.Move move = tempBoard.parseMove(moveStr);
-                
-                if (move != null && tempBoard.makeMove(move)) {
-                    String nextColor = currentColor.equalsIgnoreCase("red") ? "black" : "red";
-                    int eval = minimax(tempBoard, depth - 1, alpha, beta, true, nextColor, originalColor);
-                    
-                    minEval = Math.min(minEval, eval);
-                    beta = Math.min(beta, eval);
-                    
-                    // Alpha-beta pruning
-                    if (beta <= alpha) {
-                        break;
+            // Ponder hit: the background search already has our position, so it keeps
+            // going on our clock. On a miss it is stopped and we search from scratch;
+            // the table keeps whatever it learned either way.
+            if (ponderSearch != null) {
+                boolean hit = isRed == ponderRed && board.isRedToMove() == isRed
+                        && board.getHash() == ponderBoard.getHash();
+                if (hit) {
+                    String move = finishPondering();
+                    if (move != null) {
+                        return move;
                     }
+                } else {
+                    stopPondering();
                 }
             }
-            return minEval;
+            stopped = false;
+            return search(board, isRed);
+        } finally {
+            lastStats.timeMs = timeManager.elapsed();
+            timeManager.endMove();
         }
     }
     
     /**
-     * Evaluate the current board position using BoardEvaluation
-     * @param board The board to evaluate
-     * @param color The color to evaluate for
-     * @return The evaluation score
+     * The best move found so far by the search of this position: the move of the last
+     * completed iteration, or a root move of the unfinished one that already beat it.
+     * Before the first iteration completes, this is the first of the ordered root moves,
+     * published as soon as they are ordered (or the book move). Safe to call from any
+     * thread while findBestMove runs, e.g. a watchdog that has to reply before the
+     * server's deadline.
+     * @return The move in server format, or null if no search of this position has one yet
      */
-    private int evaluatePosition(Board board, String color) {
-        // Convert Board to char[][] format expected by BoardEvaluation
-        char[][] charBoard = new char[8][8];
-        
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                int piece = board.getPiece(row, col);
-                switch (piece) {
-                    case Board.EMPTY:
-                        charBoard[row][col] = ' ';
-                        break;
-                    case Board.BLACK_PUSHED:
-                        charBoard[row][col] = 'b';
-                        break;
-                    case Board.BLACK_PUSHER:
-                        charBoard[row][col] = 'B';
-                        break;
-                    case Board.RED_PUSHED:
-                        charBoard[row][col] = 'r';
-                        break;
-                    case Board.RED_PUSHER:
-                        charBoard[row][col] = 'R';
-                        break;
-                    default:
-                        charBoard[row][col] = ' ';
-                        break;
-                }
-            }
+    public String bestMoveSoFar(Board board) {
+        long published = bestSoFar;
+        int move = (int) published;
+        if (move == Board.Move.NONE || ((published ^ board.getHash()) >>> 32) != 0) {
+            return null;
         }
-        
-        return BoardEvaluation.evaluate(charBoard, color);
+        return Board.Move.toServerFormat(move);
     }
     
-    /**
-     * Create a deep copy of the board
-     * @param original The original board
-     * @return A copy of the board
-     */
-    private Board copyBoard(Board original) {
-        Board copy = new Board();
-        
-        // Copy the board configuration
-        String config = original.getBoardConfiguration();
-        copy.parseBoardFromServer(config);
-        copy.setRedPlayer(original.isRedPlayer());
-        
-        return copy;
+    void publishBestMove(long rootHash, int move) {
+        bestSoFar = (rootHash & 0xFFFFFFFF00000000L) | (move & 0xFFFFFFFFL);
     }
     
     /**
-     * Optimized move ordering for maximum pruning efficiency
+     * Start searching on the opponent's time. Call right after our move was sent: the
+     * opponent's most likely reply (the one our last search expected) is played on a
+     * copy of the board, and our answer to it is searched in the background until
+     * findBestMove is called with the actual position.
+     * @param board The position after our move, opponent to move
+     * @param color Our color ("red" or "black")
      */
-    private String[] orderMoves(String[] moves, Board board, String color) {
-        // Quick pre-filtering for immediate returns
-        List<String> safeCaptures = new ArrayList<>();
-        List<String> safeMoves = new ArrayList<>();
-        List<String> riskyMoves = new ArrayList<>();
-        
-        for (String moveStr : moves) {
-            Board.Move move = board.parseMove(moveStr);
-            if (move == null) continue;
-            
-            int targetPiece = board.getPiece(move.toRow, move.toCol);
-            boolean isCapture = (targetPiece != Board.EMPTY);
-            boolean isSafe = !willBeExposedToCapture(board, move, color);
-            
-            if (isCapture && isSafe) {
-                safeCaptures.add(moveStr); // Highest priority
-            } else if (isSafe) {
-                safeMoves.add(moveStr); // Medium priority
-            } else {
-                riskyMoves.add(moveStr); // Lowest priority
-            }
+    public void startPondering(Board board, String color) {
+        stopPondering();
+        boolean isRed = color.equalsIgnoreCase("red");
+        int reply = expectedReply(board, isRed);
+        if (reply == Board.Move.NONE) {
+            return;
         }
         
-        // Combine in priority order
-        List<String> orderedMoves = new ArrayList<>();
-        orderedMoves.addAll(safeCaptures);
-        orderedMoves.addAll(safeMoves);
-        orderedMoves.addAll(riskyMoves);
+        ponderBoard.copyFrom(board);
+        ponderBoard.makeMove(reply);
+        if (ponderBoard.isGameOver()) {
+            return;
+        }
+        ponderRed = isRed;
         
-        return orderedMoves.toArray(new String[0]);
+        if (ponderThread == null) {
+            ponderThread = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "search-ponder");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        pondering = true;
+        stopped = false;
+        ponderSearch = ponderThread.submit(() -> search(ponderBoard, isRed));
     }
     
     /**
-     * Calculate how threatening an enemy piece is based on its position
+     * Cancel a background search and wait for it, so the workers are free again
      */
-    private int getEnemyThreatLevel(int row, boolean weAreRed) {
-        if (weAreRed) {
-            // We are red, enemy is black advancing toward row 7
-            // Enemy at row 0 = threat 0, enemy at row 7 = threat 7
-            return row;
-        } else {
-            // We are black, enemy is red advancing toward row 0  
-            // Enemy at row 7 = threat 0, enemy at row 0 = threat 7
-            return 7 - row;
+    public void stopPondering() {
+        if (ponderSearch == null) return;
+        stopped = true;
+        finishPondering();
+    }
+    
+    public boolean isPondering() {
+        return ponderSearch != null;
+    }
+    
+    // Hand the ponder search over to the clock started by findBestMove and wait for its move
+    private String finishPondering() {
+        Future<String> pending = ponderSearch;
+        ponderSearch = null;
+        pondering = false;
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Log.error("Ponder search failed: %s", e.getCause());
         }
+        return null;
     }
     
-    /**
-     * CRITICAL: Ultra-fast check if a move will expose our piece to enemy capture
-     * Optimized for speed with early termination
-     */
-    private boolean willBeExposedToCapture(Board board, Board.Move move, String color) {
-        // Create a temporary board to test the move
-        Board tempBoard = copyBoard(board);
-        if (!tempBoard.makeMove(move)) {
-            return false; // Invalid move
+    // The opponent move stored in the table for this position, if it is legal here
+    private int expectedReply(Board board, boolean ourRed) {
+        long entry = transpositionTable.probe(SearchWorker.tableKey(board, ourRed));
+        int move = TranspositionTable.moveOf(entry);
+        if (entry == 0 || move == Board.Move.NONE) {
+            return Board.Move.NONE;
         }
         
-        boolean isRed = color.equalsIgnoreCase("red");
-        
-        // Fast check: only look at enemy pieces that could potentially reach our destination
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                int piece = tempBoard.getPiece(row, col);
-                
-                // Skip empty squares and our own pieces
-                if (piece == Board.EMPTY) continue;
-                boolean isPieceRed = (piece == Board.RED_PUSHER || piece == Board.RED_PUSHED);
-                if (isPieceRed == isRed) continue; // Skip our own pieces
-                
-                // Quick distance check - if too far, skip detailed move generation
-                int distance = Math.abs(row - move.toRow) + Math.abs(col - move.toCol);
-                if (distance > 2) continue; // Enemy pieces more than 2 squares away can't capture in one move
-                
-                // Check if this enemy piece can capture our piece
-                if (canPieceCapturePosition(tempBoard, row, col, move.toRow, move.toCol)) {
-                    return true; // Exposed to capture!
-                }
+        int[] replies = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generate(board, !ourRed, replies);
+        for (int i = 0; i < count; i++) {
+            if (replies[i] == move) {
+                return move;
             }
         }
-        
-        return false;
+        return Board.Move.NONE;
     }
     
-    /**
-     * Fast check if a piece at (fromRow, fromCol) can capture position (toRow, toCol)
-     */
-    private boolean canPieceCapturePosition(Board board, int fromRow, int fromCol, int toRow, int toCol) {
-        int piece = board.getPiece(fromRow, fromCol);
-        if (piece == Board.EMPTY) return false;
+    // Callers reset the stop flag before starting, so a cancel can never be lost
+    private String search(Board board, boolean isRed) {
+        lastStats.reset();
         
-        boolean isPusher = (piece == Board.RED_PUSHER || piece == Board.BLACK_PUSHER);
-        boolean isRed = (piece == Board.RED_PUSHER || piece == Board.RED_PUSHED);
+        // Get all possible moves for the current player
+        SearchWorker main = workers[0];
+        int moveCount = main.prepare(board, isRed);
         
-        if (isPusher) {
-            // Pusher movement rules
-            int direction = isRed ? -1 : 1; // Red moves up (-1), Black moves down (+1)
-            
-            // Can move diagonally forward to capture
-            if (toRow == fromRow + direction && Math.abs(toCol - fromCol) == 1) {
-                return true;
+        if (moveCount == 0) {
+            return null; // No moves available
+        }
+        // Until the first iteration completes, the best guess is the first ordered move
+        publishBestMove(board.getHash(), main.rootMove(0));
+        
+        // If only one move, return it immediately
+        if (moveCount == 1) {
+            lastStats.source = SearchStats.SOURCE_ONLY_MOVE;
+            return Board.Move.toServerFormat(main.rootMove(0));
+        }
+        
+        // Decided endgames are played straight from the tablebase
+        if (tablebase != null) {
+            int exact = main.findTablebaseMove(tablebase);
+            if (exact != Board.Move.NONE) {
+                lastStats.source = SearchStats.SOURCE_TABLEBASE;
+                return Board.Move.toServerFormat(exact);
             }
         }
         
-        // For pushed pieces, we'd need to check if there's a pusher behind them
-        // But for efficiency, we'll do a simplified check
+        // IMMEDIATE SAFETY CHECK: Return safe captures and winning moves instantly
+        int immediate = main.findImmediateMove();
+        if (immediate != Board.Move.NONE) {
+            lastStats.source = SearchStats.SOURCE_IMMEDIATE;
+            return Board.Move.toServerFormat(immediate);
+        }
         
-        return false;
-    }
-    
-    /**
-     * Enhanced threat detection - check if any of our pieces are under immediate threat
-     */
-    private boolean isUnderImmediateThreat(Board board, int row, int col, String color) {
-        boolean isRed = color.equalsIgnoreCase("red");
-        String enemyColor = isRed ? "black" : "red";
+        int maxDepth = depthLimit > 0 ? Math.min(depthLimit, SearchWorker.MAX_PLY - 1) : SearchWorker.MAX_PLY - 1;
+        
+        // Helpers fill the shared table until the main worker is done; odd helpers run one ply ahead
+        Future<?>[] pending = new Future<?>[workers.length - 1];
+        for (int i = 1; i < workers.length; i++) {
+            SearchWorker helper = workers[i];
+            helper.prepare(board, isRed);
+            int startDepth = 1 + (i & 1);
+            pending[i - 1] = helpers.submit(() -> helper.iterativeDeepening(startDepth, SearchWorker.MAX_PLY - 1));
+        }
         
-        // Get all enemy moves and see if any target this position
-        String[] enemyMoves = MoveGenerator.move(enemyColor, board);
+        int bestMove = main.iterativeDeepening(1, maxDepth);
         
-        for (String enemyMoveStr : enemyMoves) {
-            Board.Move enemyMove = board.parseMove(enemyMoveStr);
-            if (enemyMove != null && enemyMove.toRow == row && enemyMove.toCol == col) {
-                return true; // This piece is under threat!
+        // Stop the helpers and wait for them so their boards are free for the next search
+        stopped = true;
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                Log.error("Search helper failed: %s", e.getMessage());
             }
         }
         
-        return false;
+        // The helpers are done, so their counters can be read without synchronization
+        if (bestMove != Board.Move.NONE) {
+            main.collectPrincipalVariation(bestMove);
+        }
+        lastStats.threads = workers.length;
+        for (SearchWorker worker : workers) {
+            lastStats.add(worker.stats);
+        }
+        lastStats.copyIterations(main.stats);
+        
+        if (bestMove == Board.Move.NONE) {
+            bestMove = (int) bestSoFar; // Stopped before its first iteration completed
+        }
+        return Board.Move.toServerFormat(bestMove);
     }
 }
@@ -2,69 +2,157 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class MoveGenerator {
+    // Largest number of moves one side can have: 16 pieces with at most 3 moves each
+    public static final int MAX_MOVES = 64;
+    
+    private static final long NOT_FILE_A = ~Board.FILE_A;
+    private static final long NOT_FILE_H = ~Board.FILE_H;
+    
+    /**
+     * Generate all moves for one side as packed ints (see Board.Move) with shift-and-mask
+     * operations on the bitboards. Follows the same rules as Board.isValidMove.
+     * @param board The board to generate moves for
+     * @param red True to generate red moves, false for black
+     * @param moves Caller-supplied buffer of at least MAX_MOVES entries
+     * @return The number of moves written into the buffer
+     */
+    public static int generate(Board board, boolean red, int[] moves) {
+        long empty = ~board.getOccupied();
+        long enemy = red ? board.getBlackPieces() : board.getRedPieces();
+        long pushers = board.getBitboard(red ? Board.RED_PUSHER : Board.BLACK_PUSHER);
+        long pushed = board.getBitboard(red ? Board.RED_PUSHED : Board.BLACK_PUSHED);
+        long emptyOrEnemy = empty | enemy;
+        int count = 0;
+        
+        if (red) {
+            // Red moves up the board (towards bit 0)
+            // Pushers: forward onto empty squares, diagonally onto empty or enemy squares
+            count = addMoves(moves, count, (pushers >>> 8) & empty, 8, enemy, 0);
+            count = addMoves(moves, count, ((pushers & NOT_FILE_A) >>> 9) & emptyOrEnemy, 9, enemy, 0);
+            count = addMoves(moves, count, ((pushers & NOT_FILE_H) >>> 7) & emptyOrEnemy, 7, enemy, 0);
+            
+            // Pushed pieces move in the direction of a pusher directly or diagonally behind them
+            long pushedStraight = pushed & (pushers >>> 8);
+            long pushedRight = pushed & ((pushers & NOT_FILE_H) >>> 7) & NOT_FILE_H;
+            long pushedLeft = pushed & ((pushers & NOT_FILE_A) >>> 9) & NOT_FILE_A;
+            count = addMoves(moves, count, (pushedStraight >>> 8) & empty, 8, enemy, Board.Move.PUSH);
+            count = addMoves(moves, count, (pushedRight >>> 7) & emptyOrEnemy, 7, enemy, Board.Move.PUSH);
+            count = addMoves(moves, count, (pushedLeft >>> 9) & emptyOrEnemy, 9, enemy, Board.Move.PUSH);
+        } else {
+            // Black moves down the board (towards bit 63)
+            count = addMoves(moves, count, (pushers << 8) & empty, -8, enemy, 0);
+            count = addMoves(moves, count, ((pushers & NOT_FILE_A) << 7) & emptyOrEnemy, -7, enemy, 0);
+            count = addMoves(moves, count, ((pushers & NOT_FILE_H) << 9) & emptyOrEnemy, -9, enemy, 0);
+            
+            long pushedStraight = pushed & (pushers << 8);
+            long pushedRight = pushed & ((pushers & NOT_FILE_H) << 9) & NOT_FILE_H;
+            long pushedLeft = pushed & ((pushers & NOT_FILE_A) << 7) & NOT_FILE_A;
+            count = addMoves(moves, count, (pushedStraight << 8) & empty, -8, enemy, Board.Move.PUSH);
+            count = addMoves(moves, count, (pushedRight << 9) & emptyOrEnemy, -9, enemy, Board.Move.PUSH);
+            count = addMoves(moves, count, (pushedLeft << 7) & emptyOrEnemy, -7, enemy, Board.Move.PUSH);
+        }
+        
+        return count;
+    }
+    
+    /**
+     * Generate only the capturing moves for one side, including captures made by a
+     * pushed piece. Captures are always diagonal, so this is generate without the
+     * straight moves and restricted to enemy targets.
+     * @return The number of moves written into the buffer
+     */
+    public static int generateCaptures(Board board, boolean red, int[] moves) {
+        long enemy = red ? board.getBlackPieces() : board.getRedPieces();
+        long pushers = board.getBitboard(red ? Board.RED_PUSHER : Board.BLACK_PUSHER);
+        long pushed = board.getBitboard(red ? Board.RED_PUSHED : Board.BLACK_PUSHED);
+        int count = 0;
+        
+        if (red) {
+            long pushedRight = pushed & ((pushers & NOT_FILE_H) >>> 7) & NOT_FILE_H;
+            long pushedLeft = pushed & ((pushers & NOT_FILE_A) >>> 9) & NOT_FILE_A;
+            count = addMoves(moves, count, ((pushers & NOT_FILE_A) >>> 9) & enemy, 9, enemy, 0);
+            count = addMoves(moves, count, ((pushers & NOT_FILE_H) >>> 7) & enemy, 7, enemy, 0);
+            count = addMoves(moves, count, (pushedRight >>> 7) & enemy, 7, enemy, Board.Move.PUSH);
+            count = addMoves(moves, count, (pushedLeft >>> 9) & enemy, 9, enemy, Board.Move.PUSH);
+        } else {
+            long pushedRight = pushed & ((pushers & NOT_FILE_H) << 9) & NOT_FILE_H;
+            long pushedLeft = pushed & ((pushers & NOT_FILE_A) << 7) & NOT_FILE_A;
+            count = addMoves(moves, count, ((pushers & NOT_FILE_A) << 7) & enemy, -7, enemy, 0);
+            count = addMoves(moves, count, ((pushers & NOT_FILE_H) << 9) & enemy, -9, enemy, 0);
+            count = addMoves(moves, count, (pushedRight << 9) & enemy, -9, enemy, Board.Move.PUSH);
+            count = addMoves(moves, count, (pushedLeft << 7) & enemy, -7, enemy, Board.Move.PUSH);
+        }
+        
+        return count;
+    }
+    
+    // Write one move per target square; the origin is the target plus fromOffset
+    private static int addMoves(int[] moves, int count, long targets, int fromOffset, long enemy, int flags) {
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            int captureFlag = (enemy & (1L << to)) != 0 ? Board.Move.CAPTURE : 0;
+            moves[count++] = Board.Move.encode(to + fromOffset, to, flags | captureFlag);
+        }
+        return count;
+    }
+    
     public static String[] move(String color, Board board) {
-        List<String> moves = new ArrayList<>();
+        boolean isRed = color.equalsIgnoreCase("red") || color.equalsIgnoreCase("r");
+        boolean isBlack = color.equalsIgnoreCase("black") || color.equalsIgnoreCase("b");
+        
+        int[] buffer = new int[MAX_MOVES];
+        int count = (isRed || isBlack) ? generate(board, isRed, buffer) : 0;
+        List<String> moves = new ArrayList<>(count);
+        long movable = 0L;
+        for (int i = 0; i < count; i++) {
+            moves.add(Board.Move.toServerFormat(buffer[i]));
+            movable |= 1L << Board.Move.from(buffer[i]);
+        }
+        
+        if (Log.TRACE) {
+            long ownPieces = isRed ? board.getRedPieces() : isBlack ? board.getBlackPieces() : 0L;
+            traceBlockedPieces(color, board, ownPieces, movable);
+        }
+        
+        return moves.toArray(new String[0]);
+    }
+    
+    /**
+     * Trace mode only: name every piece without a move, and when the side has pieces but
+     * no moves at all, dump the board and explain square by square why each is stuck
+     */
+    private static void traceBlockedPieces(String color, Board board, long ownPieces, long movable) {
+        for (long blocked = ownPieces & ~movable; blocked != 0; blocked &= blocked - 1) {
+            int square = Long.numberOfTrailingZeros(blocked);
+            Log.trace("%s at %s has no moves", getPieceDescription(board.getPiece(square >>> 3, square & 7)),
+                    board.positionToString(square >>> 3, square & 7));
+        }
+        if (movable != 0 || ownPieces == 0) {
+            return;
+        }
         
-        // DEBUG: Add comprehensive logging when no moves are found
-        int colorPieceCount = 0;
-        int totalPieces = 0;
+        Log.trace("%s has %d pieces but NO MOVES", color, Long.bitCount(ownPieces));
+        Log.trace("Total pieces on board: %d", Long.bitCount(board.getOccupied()));
+        Log.trace("Board state when no moves found:");
+        board.printBoard();
         
-        // Check every tile in the board (8x8)
+        // Re-scan and log each piece and why it has no moves
         for (int row = 0; row < 8; row++) {
             for (int col = 0; col < 8; col++) {
                 int pieceValue = board.getPiece(row, col);
-                
-                if (pieceValue != Board.EMPTY) {
-                    totalPieces++;
-                }
-                
-                // Generate moves for ALL pieces that belong to the current player
-                // Both pushers and pushed pieces can generate moves
                 if (isPieceOfColor(pieceValue, color)) {
-                    colorPieceCount++;
-                    List<String> pieceMoves = PossibleMoves(pieceValue, col, row, board);
+                    Log.trace("Analyzing %s at %s:", getPieceDescription(pieceValue), board.positionToString(row, col));
                     
-                    // DEBUG: Log piece-specific move generation when debugging needed
+                    List<String> pieceMoves = PossibleMoves(pieceValue, col, row, board);
                     if (pieceMoves.isEmpty()) {
-                        String pos = board.positionToString(row, col);
-                        String pieceDesc = getPieceDescription(pieceValue);
-                        System.out.println("DEBUG: " + pieceDesc + " at " + pos + " has no moves");
+                        Log.trace("  No moves available - checking why...");
+                        debugWhyNoMoves(pieceValue, col, row, board);
+                    } else {
+                        Log.trace("  Has %d moves: %s", pieceMoves.size(), pieceMoves);
                     }
-                    
-                    moves.addAll(pieceMoves);
                 }
             }
         }
-        
-        // DEBUG: Log detailed info if no moves found for a color that has pieces
-        if (moves.isEmpty() && colorPieceCount > 0) {
-            System.out.println("CRITICAL BUG: " + color + " has " + colorPieceCount + " pieces but NO MOVES!");
-            System.out.println("Total pieces on board: " + totalPieces);
-            System.out.println("Board state when no moves found:");
-            board.printBoard();
-            
-            // Re-scan and log each piece and why it has no moves
-            for (int row = 0; row < 8; row++) {
-                for (int col = 0; col < 8; col++) {
-                    int pieceValue = board.getPiece(row, col);
-                    if (isPieceOfColor(pieceValue, color)) {
-                        String pos = board.positionToString(row, col);
-                        String pieceDesc = getPieceDescription(pieceValue);
-                        System.out.println("Analyzing " + pieceDesc + " at " + pos + ":");
-                        
-                        List<String> pieceMoves = PossibleMoves(pieceValue, col, row, board);
-                        if (pieceMoves.isEmpty()) {
-                            System.out.println("  No moves available - checking why...");
-                            debugWhyNoMoves(pieceValue, col, row, board);
-                        } else {
-                            System.out.println("  Has " + pieceMoves.size() + " moves: " + pieceMoves);
-                        }
-                    }
-                }
-            }
-        }
-        
-        return moves.toArray(new String[0]);
     }
     
     // Helper method to get a description of the piece
@@ -177,13 +265,8 @@ public class MoveGenerator {
                             String toPos = board.positionToString(frontRow, col);
                             moves.add(fromPos + toPos);
                         }
-                        else if (isOppositeColor(pieceValue, frontPiece))
-                        {
-                            // Pushed pieces CAN capture straight forward when pushed by a pusher
-                            String fromPos = board.positionToString(row, col);
-                            String toPos = board.positionToString(frontRow, col);
-                            moves.add(fromPos + toPos);
-                        }
+                        // NOTE: Like pushers, pushed pieces cannot capture straight forward
+                        // (Board.isValidMove rejects it)
                     }
                 }
             }
@@ -307,12 +390,12 @@ public class MoveGenerator {
             int frontRow = row + direction;
             if (frontRow >= 0 && frontRow < 8) {
                 int frontPiece = board.getPiece(frontRow, col);
-                System.out.println("    Front (" + board.positionToString(frontRow, col) + "): " + getPieceDescription(frontPiece));
+                Log.trace("    Front (%s): %s", board.positionToString(frontRow, col), getPieceDescription(frontPiece));
                 if (frontPiece != Board.EMPTY) {
-                    System.out.println("    Cannot move forward - blocked by " + getPieceDescription(frontPiece));
+                    Log.trace("    Cannot move forward - blocked by %s", getPieceDescription(frontPiece));
                 }
             } else {
-                System.out.println("    Cannot move forward - edge of board");
+                Log.trace("    Cannot move forward - edge of board");
             }
             
             // Check diagonals
@@ -320,38 +403,38 @@ public class MoveGenerator {
             int diagLeftCol = col - 1;
             if (diagLeftRow >= 0 && diagLeftRow < 8 && diagLeftCol >= 0 && diagLeftCol < 8) {
                 int diagLeftPiece = board.getPiece(diagLeftRow, diagLeftCol);
-                System.out.println("    Diagonal left (" + board.positionToString(diagLeftRow, diagLeftCol) + "): " + getPieceDescription(diagLeftPiece));
+                Log.trace("    Diagonal left (%s): %s", board.positionToString(diagLeftRow, diagLeftCol), getPieceDescription(diagLeftPiece));
                 if (diagLeftPiece != Board.EMPTY && !isOppositeColor(pieceValue, diagLeftPiece)) {
-                    System.out.println("    Cannot move diagonal left - occupied by same color");
+                    Log.trace("    Cannot move diagonal left - occupied by same color");
                 }
             } else {
-                System.out.println("    Cannot move diagonal left - edge of board");
+                Log.trace("    Cannot move diagonal left - edge of board");
             }
             
             int diagRightRow = row + direction;
             int diagRightCol = col + 1;
             if (diagRightRow >= 0 && diagRightRow < 8 && diagRightCol >= 0 && diagRightCol < 8) {
                 int diagRightPiece = board.getPiece(diagRightRow, diagRightCol);
-                System.out.println("    Diagonal right (" + board.positionToString(diagRightRow, diagRightCol) + "): " + getPieceDescription(diagRightPiece));
+                Log.trace("    Diagonal right (%s): %s", board.positionToString(diagRightRow, diagRightCol), getPieceDescription(diagRightPiece));
                 if (diagRightPiece != Board.EMPTY && !isOppositeColor(pieceValue, diagRightPiece)) {
-                    System.out.println("    Cannot move diagonal right - occupied by same color");
+                    Log.trace("    Cannot move diagonal right - occupied by same color");
                 }
             } else {
-                System.out.println("    Cannot move diagonal right - edge of board");
+                Log.trace("    Cannot move diagonal right - edge of board");
             }
         } else if (pieceDesc.equals("Black Pushed") || pieceDesc.equals("Red Pushed")) {
             int direction = pieceDesc.startsWith("Black") ? 1 : -1;
             
-            System.out.println("    Pushed piece - checking for pushers behind...");
+            Log.trace("    Pushed piece - checking for pushers behind...");
             
             // Check directly behind
             int behindRow = row - direction;
             int behindCol = col;
             if (behindRow >= 0 && behindRow < 8) {
                 int behindPiece = board.getPiece(behindRow, behindCol);
-                System.out.println("    Behind (" + board.positionToString(behindRow, behindCol) + "): " + getPieceDescription(behindPiece));
+                Log.trace("    Behind (%s): %s", board.positionToString(behindRow, behindCol), getPieceDescription(behindPiece));
                 if (!isPusherOfSameColor(pieceValue, behindPiece)) {
-                    System.out.println("    No pusher directly behind");
+                    Log.trace("    No pusher directly behind");
                 }
             }
             
@@ -360,14 +443,14 @@ public class MoveGenerator {
             int behindLeftCol = col - 1;
             if (behindLeftRow >= 0 && behindLeftRow < 8 && behindLeftCol >= 0 && behindLeftCol < 8) {
                 int behindLeftPiece = board.getPiece(behindLeftRow, behindLeftCol);
-                System.out.println("    Behind left (" + board.positionToString(behindLeftRow, behindLeftCol) + "): " + getPieceDescription(behindLeftPiece));
+                Log.trace("    Behind left (%s): %s", board.positionToString(behindLeftRow, behindLeftCol), getPieceDescription(behindLeftPiece));
             }
             
             int behindRightRow = row - direction;
             int behindRightCol = col + 1;
             if (behindRightRow >= 0 && behindRightRow < 8 && behindRightCol >= 0 && behindRightCol < 8) {
                 int behindRightPiece = board.getPiece(behindRightRow, behindRightCol);
-                System.out.println("    Behind right (" + board.positionToString(behindRightRow, behindRightCol) + "): " + getPieceDescription(behindRightPiece));
+                Log.trace("    Behind right (%s): %s", board.positionToString(behindRightRow, behindRightCol), getPieceDescription(behindRightPiece));
             }
         }
     }
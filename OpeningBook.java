@@ -0,0 +1,264 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Opening book: moves for early positions, found offline by deep self-play searches.
+ *
+ * File format (big-endian): the int MAGIC, the int entry count, then the entries
+ * sorted by key. Each entry is 12 bytes: the Zobrist key of the position (Board.getHash,
+ * side to move included), the packed move (Board.Move) as a short, and its weight as
+ * an unsigned short. A position with several book moves has consecutive entries.
+ *
+ * The file is memory-mapped, so loading costs nothing and a probe is a binary search
+ * over the mapped entries.
+ *
+ * Usage:
+ *   java OpeningBook build [file] [games] [plies] [depth]   generate a book by self-play
+ *   java OpeningBook show [file]                            print the book moves from the start
+ */
+public class OpeningBook {
+    public static final String DEFAULT_FILE = "book.bin";
+
+    private static final int MAGIC = 0x50424B31; // "PBK1"
+    private static final int HEADER_BYTES = 8;
+    private static final int ENTRY_BYTES = 12;
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    // Defaults for the builder
+    private static final int DEFAULT_GAMES = 200;
+    private static final int DEFAULT_PLIES = 10;
+    private static final int DEFAULT_DEPTH = 9;
+    private static final int MAX_RANDOM_PLIES = 2; // Random moves before recording, for variety
+
+    private final MappedByteBuffer entries;
+    private final int entryCount;
+    private final SplittableRandom random = new SplittableRandom();
+    private final int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+
+    private OpeningBook(MappedByteBuffer entries, int entryCount) {
+        this.entries = entries;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * Map a book file into memory
+     * @return The book, or null if the file does not exist or is not a book
+     */
+    public static OpeningBook load(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                Log.warn("Not an opening book: %s", file);
+                return null;
+            }
+            int count = buffer.getInt(4);
+            if ((long) HEADER_BYTES + (long) count * ENTRY_BYTES > buffer.limit()) {
+                Log.warn("Truncated opening book: %s", file);
+                return null;
+            }
+            return new OpeningBook(buffer, count);
+        } catch (IOException e) {
+            Log.warn("Could not load opening book %s: %s", file, e.getMessage());
+            return null;
+        }
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Pick a book move for the side to move, at random in proportion to the weights
+     * @return A legal packed move, or Board.Move.NONE if the position is not in the book
+     */
+    public synchronized int probe(Board board) {
+        long key = board.getHash();
+        int first = firstIndex(key);
+        if (first < 0) {
+            return Board.Move.NONE;
+        }
+
+        // Only moves that are legal here count, in case two positions share a key
+        int legalCount = MoveGenerator.generate(board, board.isRedToMove(), legalMoves);
+        int total = 0;
+        int last = first;
+        for (; last < entryCount && keyAt(last) == key; last++) {
+            if (isLegal(moveAt(last), legalCount)) {
+                total += weightAt(last);
+            }
+        }
+        if (total == 0) {
+            return Board.Move.NONE;
+        }
+
+        int pick = random.nextInt(total);
+        for (int i = first; i < last; i++) {
+            int move = moveAt(i);
+            if (isLegal(move, legalCount)) {
+                pick -= weightAt(i);
+                if (pick < 0) {
+                    return move;
+                }
+            }
+        }
+        return Board.Move.NONE;
+    }
+
+    // Binary search for the first entry with the key, or -1
+    private int firstIndex(long key) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compare(keyAt(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < entryCount && keyAt(low) == key ? low : -1;
+    }
+
+    private boolean isLegal(int move, int legalCount) {
+        for (int i = 0; i < legalCount; i++) {
+            if (legalMoves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(HEADER_BYTES + index * ENTRY_BYTES);
+    }
+
+    private int moveAt(int index) {
+        return entries.getShort(HEADER_BYTES + index * ENTRY_BYTES + 8) & 0x3FFF;
+    }
+
+    private int weightAt(int index) {
+        return entries.getShort(HEADER_BYTES + index * ENTRY_BYTES + 10) & 0xFFFF;
+    }
+
+    /**
+     * Play self-play games from the starting position and record the move the search
+     * chose in every position of the first plies. A move gains weight each time a game
+     * reaches the position and the search picks it again. The first few plies of a game
+     * may be random (and are not recorded) so the games spread over different openings.
+     */
+    public static void build(Path file, int games, int plies, int depth) throws IOException {
+        MiniMax miniMax = new MiniMax();
+        miniMax.setThreads(Runtime.getRuntime().availableProcessors());
+        miniMax.setDepthLimit(depth);
+        SplittableRandom random = new SplittableRandom(1);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        // key -> (packed move -> weight); each position is searched once, later visits reuse the move
+        Map<Long, Map<Integer, Integer>> book = new HashMap<>();
+        Map<Long, Integer> searched = new HashMap<>();
+
+        for (int game = 0; game < games; game++) {
+            Board board = new Board();
+            int randomPlies = random.nextInt(MAX_RANDOM_PLIES + 1);
+            for (int ply = 0; ply < plies && !board.isGameOver(); ply++) {
+                boolean red = board.isRedToMove();
+                int move;
+                if (ply < randomPlies) {
+                    int count = MoveGenerator.generate(board, red, moves);
+                    if (count == 0) break;
+                    move = moves[random.nextInt(count)];
+                } else {
+                    long key = board.getHash();
+                    Integer known = searched.get(key);
+                    if (known == null) {
+                        String best = miniMax.findBestMove(board, red ? "red" : "black");
+                        known = findMove(board, best, moves);
+                        if (known == Board.Move.NONE) break;
+                        searched.put(key, known);
+                    }
+                    move = known;
+                    book.computeIfAbsent(key, k -> new HashMap<>()).merge(move, 1, Integer::sum);
+                }
+                board.makeMove(move);
+            }
+            System.out.println("game " + (game + 1) + "/" + games + ": " + book.size() + " positions");
+        }
+
+        write(file, book);
+    }
+
+    // The generated move (with its capture/push flags) matching a server-format move
+    private static int findMove(Board board, String serverMove, int[] moves) {
+        int count = serverMove == null ? 0 : MoveGenerator.generate(board, board.isRedToMove(), moves);
+        for (int i = 0; i < count; i++) {
+            if (Board.Move.toServerFormat(moves[i]).equals(serverMove)) {
+                return moves[i];
+            }
+        }
+        return Board.Move.NONE;
+    }
+
+    private static void write(Path file, Map<Long, Map<Integer, Integer>> book) throws IOException {
+        List<long[]> rows = new ArrayList<>();
+        for (Map.Entry<Long, Map<Integer, Integer>> position : book.entrySet()) {
+            for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                rows.add(new long[] { position.getKey(), move.getKey(), Math.min(MAX_WEIGHT, move.getValue()) });
+            }
+        }
+        rows.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(b[2], a[2]));
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(rows.size());
+            for (long[] row : rows) {
+                out.writeLong(row[0]);
+                out.writeShort((int) row[1]);
+                out.writeShort((int) row[2]);
+            }
+        }
+        System.out.println("Wrote " + rows.size() + " entries to " + file);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String command = args.length > 0 ? args[0] : "";
+        Path file = Paths.get(args.length > 1 ? args[1] : DEFAULT_FILE);
+
+        if (command.equals("build")) {
+            int games = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_GAMES;
+            int plies = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_PLIES;
+            int depth = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_DEPTH;
+            build(file, games, plies, depth);
+        } else if (command.equals("show")) {
+            OpeningBook book = load(file);
+            if (book == null) {
+                System.exit(1);
+            }
+            System.out.println(book.size() + " entries");
+            Board board = new Board();
+            for (int move; (move = book.probe(board)) != Board.Move.NONE; ) {
+                System.out.println(Board.Move.toServerFormat(move));
+                board.makeMove(move);
+            }
+        } else {
+            System.err.println("Usage: java OpeningBook build [file] [games] [plies] [depth]");
+            System.err.println("       java OpeningBook show [file]");
+            System.exit(2);
+        }
+    }
+}
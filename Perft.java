@@ -0,0 +1,148 @@
+/**
+ * Perft: counts the leaf nodes of the full move tree to a fixed depth. Used as a
+ * correctness gate for MoveGenerator.generate and Board.makeMove/unmakeMove, and as
+ * a raw throughput number for them.
+ *
+ * No moves are made from a position where the game is already over, so such a
+ * position only counts as a leaf at depth 0.
+ *
+ * Usage:
+ *   java Perft                                   run the reference suite
+ *   java Perft depth [red|black] [board] [divide] count one position
+ *                                                (board in parseBoardFromServer format,
+ *                                                 default is the starting position)
+ */
+public class Perft {
+    private static final int MAX_DEPTH = 32;
+
+    private static final String START =
+        "2 2 2 2 2 2 2 2 1 1 1 1 1 1 1 1 0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 "
+      + "0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 3 3 3 3 3 3 3 3 4 4 4 4 4 4 4 4";
+
+    // Reference positions with leaf counts for depths 1, 2, 3, ... computed by an
+    // independent brute-force generator built on Board.isValidMove
+    private static final String[][] SUITE = {
+        { "red", START },
+        { "red",
+          "0 2 2 2 2 0 0 0 0 1 1 1 1 1 0 2 1 0 0 0 0 2 1 1 0 0 0 0 0 0 0 0 "
+        + "0 2 4 0 0 0 0 3 3 3 3 0 0 4 3 4 4 4 0 3 3 0 0 0 0 0 0 4 4 4 0 0" },
+        { "black",
+          "0 0 0 0 0 0 0 0 0 0 2 0 0 0 2 0 0 0 1 0 0 2 1 0 0 0 0 0 0 0 0 0 "
+        + "0 0 0 0 0 0 0 0 0 3 4 0 0 0 3 0 0 4 0 0 0 0 4 0 0 0 0 0 0 0 0 0" },
+    };
+    private static final long[][] SUITE_COUNTS = {
+        { 20L, 400L, 7400L, 136900L, 2378360L },
+        { 17L, 272L, 4675L, 73156L, 1257989L },
+        { 8L, 64L, 527L, 4247L, 34566L },
+    };
+
+    private final Board board;
+    private final int[][] moveBuffers = new int[MAX_DEPTH][MoveGenerator.MAX_MOVES];
+
+    public Perft(Board board) {
+        this.board = board;
+    }
+
+    /**
+     * Count the leaf nodes at the given depth below the current position
+     */
+    public long perft(int depth) {
+        return perft(depth, 0);
+    }
+
+    private long perft(int depth, int ply) {
+        if (depth == 0) return 1;
+        if (board.isGameOver()) return 0;
+
+        int[] moves = moveBuffers[ply];
+        int count = MoveGenerator.generate(board, board.isRedToMove(), moves);
+        if (depth == 1) return count;
+
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            long undo = board.makeMove(moves[i]);
+            nodes += perft(depth - 1, ply + 1);
+            board.unmakeMove(undo);
+        }
+        return nodes;
+    }
+
+    /**
+     * Print the leaf count below each root move, then the total
+     */
+    public long divide(int depth) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = board.isGameOver() ? 0 : MoveGenerator.generate(board, board.isRedToMove(), moves);
+
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            long undo = board.makeMove(moves[i]);
+            long nodes = perft(depth - 1, 1);
+            board.unmakeMove(undo);
+            System.out.println(Board.Move.toServerFormat(moves[i]) + ": " + nodes);
+            total += nodes;
+        }
+        System.out.println("Moves: " + count + ", nodes: " + total);
+        return total;
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.exit(runSuite() ? 0 : 1);
+        }
+
+        int depth = Integer.parseInt(args[0]);
+        String side = args.length > 1 ? args[1] : "red";
+        String position = args.length > 2 ? args[2] : START;
+        boolean divide = args.length > 3 && args[3].equalsIgnoreCase("divide");
+        if (depth < 1 || depth >= MAX_DEPTH) {
+            System.err.println("Depth must be between 1 and " + (MAX_DEPTH - 1));
+            System.exit(2);
+        }
+
+        Perft perft = new Perft(load(position, side));
+        long start = System.nanoTime();
+        long nodes = divide ? perft.divide(depth) : perft.perft(depth);
+        long elapsed = System.nanoTime() - start;
+        System.out.println("perft(" + depth + ") = " + nodes + formatSpeed(nodes, elapsed));
+    }
+
+    /**
+     * Check every stored reference count
+     * @return True if all counts matched
+     */
+    public static boolean runSuite() {
+        boolean passed = true;
+        long totalNodes = 0;
+        long totalNanos = 0;
+
+        for (int p = 0; p < SUITE.length; p++) {
+            Perft perft = new Perft(load(SUITE[p][1], SUITE[p][0]));
+            for (int d = 0; d < SUITE_COUNTS[p].length; d++) {
+                long start = System.nanoTime();
+                long nodes = perft.perft(d + 1);
+                long elapsed = System.nanoTime() - start;
+                totalNodes += nodes;
+                totalNanos += elapsed;
+
+                boolean ok = nodes == SUITE_COUNTS[p][d];
+                passed &= ok;
+                System.out.println("position " + (p + 1) + " depth " + (d + 1) + ": " + nodes
+                        + (ok ? " ok" : " FAILED, expected " + SUITE_COUNTS[p][d]));
+            }
+        }
+        System.out.println((passed ? "All counts match" : "MISMATCH") + formatSpeed(totalNodes, totalNanos));
+        return passed;
+    }
+
+    private static Board load(String position, String side) {
+        Board board = new Board();
+        board.parseBoardFromServer(position);
+        board.setRedToMove(side.equalsIgnoreCase("red"));
+        return board;
+    }
+
+    private static String formatSpeed(long nodes, long nanos) {
+        return String.format(" (%.0f ms, %.0f nodes/s)", nanos / 1e6, nodes * 1e9 / Math.max(1, nanos));
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Counters for one search. Each SearchWorker owns one and is the only thread writing
+ * it, so counting needs no locks or atomics; MiniMax adds the workers' counters into
+ * its own SearchStats once they have all finished.
+ */
+class SearchStats {
+    // How the move was chosen
+    static final String SOURCE_SEARCH = "search";
+    static final String SOURCE_BOOK = "book";
+    static final String SOURCE_TABLEBASE = "tablebase";
+    static final String SOURCE_IMMEDIATE = "immediate";
+    static final String SOURCE_ONLY_MOVE = "only-move";
+
+    long nodes;
+    long quiescenceNodes;
+    long ttProbes;
+    long ttHits;
+    long ttCutoffs;
+    final long[] betaCutoffs = new long[MoveGenerator.MAX_MOVES]; // By index of the move that failed high
+
+    // Filled in by the main worker only
+    int completedDepth;
+    int score;
+    final long[] iterationMs = new long[SearchWorker.MAX_PLY];
+    final long[] iterationNodes = new long[SearchWorker.MAX_PLY]; // Nodes searched when each depth finished
+    final int[] pv = new int[SearchWorker.MAX_PLY];
+    int pvLength;
+
+    String source = SOURCE_SEARCH;
+    int threads = 1;
+    long timeMs;
+
+    void reset() {
+        nodes = 0;
+        quiescenceNodes = 0;
+        ttProbes = 0;
+        ttHits = 0;
+        ttCutoffs = 0;
+        java.util.Arrays.fill(betaCutoffs, 0L);
+        completedDepth = 0;
+        score = 0;
+        pvLength = 0;
+        source = SOURCE_SEARCH;
+        threads = 1;
+        timeMs = 0;
+    }
+
+    /**
+     * Add another worker's counters to these
+     */
+    void add(SearchStats other) {
+        nodes += other.nodes;
+        quiescenceNodes += other.quiescenceNodes;
+        ttProbes += other.ttProbes;
+        ttHits += other.ttHits;
+        ttCutoffs += other.ttCutoffs;
+        for (int i = 0; i < betaCutoffs.length; i++) {
+            betaCutoffs[i] += other.betaCutoffs[i];
+        }
+    }
+
+    /**
+     * Copy the per-iteration results of the worker that owns the clock
+     */
+    void copyIterations(SearchStats main) {
+        completedDepth = main.completedDepth;
+        score = main.score;
+        System.arraycopy(main.iterationMs, 0, iterationMs, 0, completedDepth + 1);
+        System.arraycopy(main.iterationNodes, 0, iterationNodes, 0, completedDepth + 1);
+        pvLength = main.pvLength;
+        System.arraycopy(main.pv, 0, pv, 0, pvLength);
+    }
+
+    /**
+     * Nodes of the last completed iteration divided by those of the one before it
+     */
+    double branchingFactor() {
+        if (completedDepth < 2) return 0.0;
+        long last = iterationNodes[completedDepth] - iterationNodes[completedDepth - 1];
+        long previous = iterationNodes[completedDepth - 1] - iterationNodes[completedDepth - 2];
+        return previous > 0 ? (double) last / previous : 0.0;
+    }
+
+    /**
+     * One line of JSON describing the search, for charting performance across matches
+     * @param move The move that was played
+     */
+    String toJson(String move) {
+        long totalCutoffs = 0;
+        int lastCutoffIndex = -1;
+        for (int i = 0; i < betaCutoffs.length; i++) {
+            totalCutoffs += betaCutoffs[i];
+            if (betaCutoffs[i] != 0) lastCutoffIndex = i;
+        }
+
+        StringBuilder json = new StringBuilder(512);
+        json.append("{\"move\":\"").append(move).append('"');
+        json.append(",\"source\":\"").append(source).append('"');
+        json.append(",\"timeMs\":").append(timeMs);
+        json.append(",\"threads\":").append(threads);
+        json.append(",\"depth\":").append(completedDepth);
+        json.append(",\"score\":").append(score);
+        json.append(",\"nodes\":").append(nodes);
+        json.append(",\"qnodes\":").append(quiescenceNodes);
+        json.append(",\"nps\":").append(timeMs > 0 ? nodes * 1000 / timeMs : 0);
+        json.append(",\"ebf\":").append(String.format(java.util.Locale.ROOT, "%.2f", branchingFactor()));
+        json.append(",\"ttProbes\":").append(ttProbes);
+        json.append(",\"ttHits\":").append(ttHits);
+        json.append(",\"ttCutoffs\":").append(ttCutoffs);
+        json.append(",\"betaCutoffs\":").append(totalCutoffs);
+        json.append(",\"firstMoveCutoffRate\":").append(String.format(java.util.Locale.ROOT, "%.3f",
+                totalCutoffs > 0 ? (double) betaCutoffs[0] / totalCutoffs : 0.0));
+        json.append(",\"cutoffsByMoveIndex\":[");
+        for (int i = 0; i <= lastCutoffIndex; i++) {
+            if (i > 0) json.append(',');
+            json.append(betaCutoffs[i]);
+        }
+        json.append("],\"iterationMs\":[");
+        for (int depth = 1; depth <= completedDepth; depth++) {
+            if (depth > 1) json.append(',');
+            json.append(iterationMs[depth]);
+        }
+        json.append("],\"pv\":[");
+        for (int i = 0; i < pvLength; i++) {
+            if (i > 0) json.append(',');
+            json.append('"').append(Board.Move.toServerFormat(pv[i])).append('"');
+        }
+        json.append("]}");
+        return json.toString();
+    }
+}
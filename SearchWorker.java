@@ -0,0 +1,770 @@
+/**
+ * One search thread's worth of state for MiniMax: its own board, move buffers and
+ * counters. Workers only share the transposition table and the stop flag, so any
+ * number of them can search the same position at once (Lazy SMP).
+ */
+class SearchWorker {
+    // Well above any evaluation (a won position alone is worth 1000000)
+    static final int POSITIVE_INFINITY = 100000000;
+    static final int NEGATIVE_INFINITY = -POSITIVE_INFINITY;
+    static final int MAX_PLY = 64;
+    private static final int CLOCK_CHECK_MASK = 1023; // Check the clock every 1024 nodes
+    private static final int ASPIRATION_WINDOW = 1000; // About half a pushed piece
+    // Formation terms, which moveGain ignores: a move can complete a straight formation
+    // for the mover and one for the pushed piece it drags along, each with its advance
+    // bonus, and two diagonal ones
+    private static final int DELTA_MARGIN = 3 * Math.abs(EvaluationWeights.PUSHER_BEHIND_PUSHED_BONUS)
+            + 12 * Math.abs(EvaluationWeights.FORMATION_ADVANCE_BONUS);
+    
+    // Selective search parameters
+    private static final int WIN_THRESHOLD = 500000; // Scores past this include a piece on the goal row
+    private static final int TABLEBASE_WIN = 5000000; // Above any evaluation, minus the plies to the end
+    private static final int TABLEBASE_SCORE_MIN = TABLEBASE_WIN - 1000; // Below any ply plus plies to the end
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int NULL_MOVE_ENDGAME_PIECES = 4; // At or below this many pieces, verify null-move cutoffs
+    private static final int FUTILITY_MAX_DEPTH = 2;
+    static final int FUTILITY_MARGIN = 3000; // Per remaining ply
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_FIRST_MOVE = 3; // Moves before this index are never reduced
+    
+    // Move ordering scores: hash move, then captures (MVV-LVA), then killers, then history
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 28;
+    private static final int KILLER_SCORE = 1 << 26;
+    private static final int HISTORY_MAX = 1 << 24; // Halve the table before reaching killers
+    
+    // Scores are always from the original player's point of view, so entries
+    // searched for black are keyed apart from those searched for red
+    private static final long BLACK_PERSPECTIVE_KEY = 0x9E3779B97F4A7C15L;
+    
+    private final MiniMax owner;
+    private final int id;
+    
+    // The whole search runs on this one board through makeMove/unmakeMove
+    private final Board board = new Board();
+    
+    // One move buffer (and ordering scores) per ply so the search never allocates
+    private final int[][] moveBuffers = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    private final int[][] moveScores = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    
+    // Quiet moves that caused a beta cutoff: two killer slots per ply, and a history
+    // table indexed by [side][from][to] (side 0 = red, 1 = black)
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][][] history = new int[2][64][64];
+    
+    private boolean rootRed;
+    private long rootHash; // Hash of the caller's root board, tags the moves published to MiniMax
+    private int rootMoveCount;
+    private int rootBestMove;
+    private boolean timeUp;
+    
+    // Counters for the current search, written only by this worker's thread
+    final SearchStats stats = new SearchStats();
+    
+    /**
+     * @param owner The MiniMax instance holding the shared table, clock and stop flag
+     * @param id Worker number; worker 0 is the main thread that owns the clock
+     */
+    SearchWorker(MiniMax owner, int id) {
+        this.owner = owner;
+        this.id = id;
+    }
+    
+    /**
+     * Copy the root position and generate the ordered root moves
+     * @return The number of root moves
+     */
+    int prepare(Board rootBoard, boolean isRed) {
+        rootHash = rootBoard.getHash();
+        board.copyFrom(rootBoard);
+        board.setRedToMove(isRed);
+        rootRed = isRed;
+        timeUp = false;
+        stats.reset();
+        
+        // Killers are position-specific; history carries over but is aged
+        for (int[] slots : killers) {
+            slots[0] = slots[1] = Board.Move.NONE;
+        }
+        ageHistory();
+        
+        rootMoveCount = MoveGenerator.generate(board, isRed, moveBuffers[0]);
+        
+        // Order the root moves once: captures first, then by history
+        scoreMoves(moveBuffers[0], rootMoveCount, 0, Board.Move.NONE, Attacks.computeAttacks(board, !rootRed));
+        for (int i = 0; i < rootMoveCount; i++) {
+            pickMove(moveBuffers[0], moveScores[0], i, rootMoveCount);
+        }
+        
+        // Helpers start from a rotated move list so they spread over the tree
+        if (id > 0 && rootMoveCount > 1) {
+            rotate(moveBuffers[0], rootMoveCount, id % rootMoveCount);
+        }
+        return rootMoveCount;
+    }
+    
+    /**
+     * Transposition table key of a position searched from the given root color
+     */
+    static long tableKey(Board board, boolean rootRed) {
+        return board.getHash() ^ (rootRed ? 0L : BLACK_PERSPECTIVE_KEY);
+    }
+    
+    int rootMove(int index) {
+        return moveBuffers[0][index];
+    }
+    
+    long getNodes() {
+        return stats.nodes;
+    }
+    
+    /**
+     * If the root position is decided in the tablebase, pick the exact move: the fastest
+     * win, or the slowest loss
+     * @return The move, or Board.Move.NONE if the tablebase does not decide the root
+     */
+    int findTablebaseMove(Tablebase tablebase) {
+        if (tablebase.probe(board) == Tablebase.UNKNOWN) {
+            return Board.Move.NONE;
+        }
+        
+        int bestMove = Board.Move.NONE;
+        int bestScore = NEGATIVE_INFINITY;
+        for (int i = 0; i < rootMoveCount; i++) {
+            int move = moveBuffers[0][i];
+            long undo = board.makeMove(move);
+            int value = tablebase.probe(board);
+            board.unmakeMove(undo);
+            int score = -tablebaseScore(value, 1);
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+            }
+        }
+        return bestMove;
+    }
+    
+    /**
+     * Look for root moves worth playing without a search: a capture that cannot be
+     * answered by a recapture, or a move that wins on the spot
+     * @return The move, or Board.Move.NONE
+     */
+    int findImmediateMove() {
+        int[] possibleMoves = moveBuffers[0];
+        for (int i = 0; i < rootMoveCount; i++) {
+            int move = possibleMoves[i];
+            
+            // Check for captures first
+            if (Board.Move.isCapture(move)) {
+                // Play it at once if nothing can take the capturing piece back
+                long undo = board.makeMove(move);
+                boolean exposed = Attacks.isAttacked(board, Board.Move.to(move), !rootRed);
+                board.unmakeMove(undo);
+                if (!exposed) {
+                    return move;
+                }
+            }
+            
+            // Check for winning moves
+            long undo = board.makeMove(move);
+            String winner = board.hasWinner() ? board.getWinner() : null;
+            board.unmakeMove(undo);
+            if ((rootRed && "Red".equals(winner)) || (!rootRed && "Black".equals(winner))) {
+                return move;
+            }
+        }
+        return Board.Move.NONE;
+    }
+    
+    /**
+     * Iterative deepening from the prepared root. From the second iteration on, each
+     * root search uses an aspiration window around the previous score and widens it
+     * whenever the score falls outside.
+     * @param startDepth First depth to search; helpers start one deeper to diversify
+     * @param maxDepth Last depth to search
+     * @return The best move of the deepest completed iteration, or the move of an
+     *         unfinished iteration that already beat it, or Board.Move.NONE
+     */
+    int iterativeDeepening(int startDepth, int maxDepth) {
+        int bestMove = Board.Move.NONE;
+        int previousScore = 0;
+        
+        // Each iteration starts from the previous best move, and the main worker only starts
+        // a new iteration if the time manager expects it to finish within the budget
+        long lastIterationMs = 0;
+        long previousIterationMs = 0;
+        for (int depth = startDepth; depth <= maxDepth && !timeUp; depth++) {
+            if (id == 0 && depth > startDepth && owner.depthLimit == 0 && !owner.pondering
+                    && !owner.timeManager.canStartIteration(lastIterationMs, previousIterationMs)) {
+                break;
+            }
+            long iterationStart = System.currentTimeMillis();
+            
+            int delta = ASPIRATION_WINDOW;
+            int alpha = NEGATIVE_INFINITY;
+            int beta = POSITIVE_INFINITY;
+            if (depth > startDepth) {
+                alpha = Math.max(NEGATIVE_INFINITY, previousScore - delta);
+                beta = Math.min(POSITIVE_INFINITY, previousScore + delta);
+            }
+            
+            while (true) {
+                // The best move so far goes first, also for a re-search after a fail high,
+                // so any move that beats alpha later on is better than it
+                moveToFront(moveBuffers[0], rootMoveCount, bestMove);
+                int score = searchRoot(depth, alpha, beta);
+                if (timeUp) {
+                    if (rootBestMove != Board.Move.NONE) {
+                        bestMove = rootBestMove;
+                    }
+                    break;
+                }
+                
+                if (score <= alpha && alpha > NEGATIVE_INFINITY) {
+                    // Failed low: every move looked worse than expected, search again lower
+                    alpha = Math.max(NEGATIVE_INFINITY, alpha - delta);
+                } else if (score >= beta && beta < POSITIVE_INFINITY) {
+                    // Failed high: the first move to beat beta is kept, but its score is only a bound
+                    bestMove = rootBestMove;
+                    beta = Math.min(POSITIVE_INFINITY, beta + delta);
+                } else {
+                    bestMove = rootBestMove;
+                    previousScore = score;
+                    break;
+                }
+                delta *= 4;
+            }
+            
+            previousIterationMs = lastIterationMs;
+            lastIterationMs = System.currentTimeMillis() - iterationStart;
+            if (!timeUp) {
+                stats.completedDepth = depth;
+                stats.score = previousScore;
+                stats.iterationMs[depth] = lastIterationMs;
+                stats.iterationNodes[depth] = stats.nodes;
+            }
+        }
+        return bestMove;
+    }
+    
+    /**
+     * Follow the transposition table from the root to record the principal variation
+     * in stats, checking each stored move is legal before playing it
+     */
+    void collectPrincipalVariation(int bestMove) {
+        long[] undo = new long[MAX_PLY];
+        int length = 0;
+        int move = bestMove;
+        while (move != Board.Move.NONE && length < Math.max(1, stats.completedDepth)) {
+            undo[length] = board.makeMove(move);
+            stats.pv[length++] = move;
+            if (board.isGameOver()) break;
+            
+            long entry = owner.transpositionTable.probe(tableKey(board, rootRed));
+            int next = entry == 0 ? Board.Move.NONE : TranspositionTable.moveOf(entry);
+            int count = MoveGenerator.generate(board, board.isRedToMove(), moveBuffers[length]);
+            move = Board.Move.NONE;
+            for (int i = 0; i < count; i++) {
+                if (moveBuffers[length][i] == next) {
+                    move = next;
+                    break;
+                }
+            }
+        }
+        stats.pvLength = length;
+        while (length > 0) {
+            board.unmakeMove(undo[--length]);
+        }
+    }
+    
+    /**
+     * Principal variation search over the root moves: the first move gets the full
+     * window, the rest a null window that only proves they are no better.
+     * Only a move that beats alpha becomes rootBestMove, so when the search is cut
+     * off, rootBestMove is either Board.Move.NONE or a move at least as good as the
+     * first. The main worker publishes each one to MiniMax as soon as it is found.
+     * @return The best score, with the move stored in rootBestMove
+     */
+    private int searchRoot(int depth, int alpha, int beta) {
+        int[] possibleMoves = moveBuffers[0];
+        int bestScore = NEGATIVE_INFINITY;
+        rootBestMove = Board.Move.NONE;
+        
+        for (int i = 0; i < rootMoveCount; i++) {
+            // Apply the move in place
+            int move = possibleMoves[i];
+            long undo = board.makeMove(move);
+            
+            int score;
+            if (i == 0) {
+                score = -negamax(depth - 1, 1, -beta, -alpha, true, true);
+            } else {
+                score = -negamax(depth - 1, 1, -alpha - 1, -alpha, false, true);
+                if (score > alpha && score < beta) {
+                    score = -negamax(depth - 1, 1, -beta, -alpha, true, true);
+                }
+            }
+            board.unmakeMove(undo);
+            if (timeUp) break;
+            
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    rootBestMove = move;
+                    if (id == 0) {
+                        owner.publishBestMove(rootHash, move);
+                    }
+                    alpha = score;
+                    if (alpha >= beta) break;
+                }
+            }
+        }
+        return bestScore;
+    }
+    
+    // Only the main worker reads the clock; it raises the shared stop flag for the helpers.
+    // While pondering the clock is not ours, so only the stop flag ends the search.
+    private void checkTime() {
+        if (id == 0 && owner.depthLimit == 0 && !owner.pondering && owner.timeManager.hardLimitReached()) {
+            owner.stopped = true;
+        }
+        if (owner.stopped) {
+            timeUp = true;
+        }
+    }
+    
+    /**
+     * Negamax with alpha-beta pruning and principal variation search. Scores are from
+     * the point of view of the side to move, so each child's score is negated.
+     * Outside the principal variation the search is selective: null-move pruning,
+     * futility pruning at the frontier and reduced depth for late quiet moves, each
+     * switchable on MiniMax.
+     * @param depth Remaining search depth
+     * @param ply Distance from the root, selects the move buffer
+     * @param alpha Alpha value for pruning
+     * @param beta Beta value for pruning
+     * @param pvNode True if this node is on the principal variation (open window)
+     * @param allowNull False right after a null move, so two are never made in a row
+     * @return The evaluation score
+     */
+    private int negamax(int depth, int ply, int alpha, int beta, boolean pvNode, boolean allowNull) {
+        
+        // Check the clock and the stop flag only every few nodes since neither is free
+        if ((++stats.nodes & CLOCK_CHECK_MASK) == 0) {
+            checkTime();
+        }
+        if (timeUp) {
+            return 0;
+        }
+        
+        // Positions in the tablebase have an exact score, finished games included
+        Tablebase tablebase = owner.tablebase;
+        if (tablebase != null) {
+            int value = tablebase.probe(board);
+            if (value != Tablebase.UNKNOWN) {
+                return tablebaseScore(value, ply);
+            }
+        }
+        
+        // Base case: game over, or out of depth and only captures are searched further
+        if (board.isGameOver() || ply >= MAX_PLY) {
+            return evaluateForSideToMove();
+        }
+        if (depth <= 0) {
+            return quiesce(ply, alpha, beta);
+        }
+        
+        // Transposition table: reuse the result of an equal or deeper search.
+        // PV nodes only take the stored move, so the principal variation stays intact.
+        long key = tableKey(board, rootRed);
+        long entry = owner.transpositionTable.probe(key);
+        int hashMove = Board.Move.NONE;
+        stats.ttProbes++;
+        if (entry != 0) {
+            stats.ttHits++;
+            hashMove = TranspositionTable.moveOf(entry);
+            if (!pvNode && TranspositionTable.depthOf(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.scoreOf(entry), ply);
+                int bound = TranspositionTable.boundOf(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    stats.ttCutoffs++;
+                    return score;
+                }
+            }
+        }
+        int originalAlpha = alpha;
+        boolean currentRed = board.isRedToMove();
+        
+        // The static score only matters for the pruning decisions outside the PV
+        int staticEval = pvNode ? 0 : evaluateForSideToMove();
+        
+        // Null move: let the opponent move twice. If a reduced search still fails high,
+        // a real move would too. Having to move can hurt when few pieces are left, so
+        // there a cutoff is only trusted after a reduced search of our own moves agrees.
+        if (!pvNode && allowNull && owner.nullMovePruning && depth >= NULL_MOVE_MIN_DEPTH
+                && staticEval >= beta && Math.abs(beta) < WIN_THRESHOLD) {
+            int reduction = 2 + depth / 4;
+            board.setRedToMove(!currentRed);
+            int nullScore = -negamax(depth - 1 - reduction, ply + 1, -beta, -beta + 1, false, false);
+            board.setRedToMove(currentRed);
+            if (timeUp) return 0;
+            
+            if (nullScore >= beta) {
+                long own = currentRed ? board.getRedPieces() : board.getBlackPieces();
+                if (Long.bitCount(own) > NULL_MOVE_ENDGAME_PIECES
+                        || negamax(depth - reduction, ply, beta - 1, beta, false, false) >= beta) {
+                    return nullScore >= WIN_THRESHOLD ? beta : nullScore;
+                }
+                if (timeUp) return 0;
+            }
+        }
+        
+        // Futility pruning: this close to the leaves, a quiet move whose gain plus a
+        // margin cannot reach alpha is not searched
+        boolean futile = !pvNode && owner.futilityPruning && depth <= FUTILITY_MAX_DEPTH
+                && Math.abs(alpha) < WIN_THRESHOLD;
+        long goalRow = currentRed ? Board.ROW_0 : Board.ROW_7;
+        int[] killerSlots = killers[ply];
+        
+        // Get all possible moves for current player
+        int[] possibleMoves = moveBuffers[ply];
+        int moveCount = MoveGenerator.generate(board, currentRed, possibleMoves);
+        
+        if (moveCount == 0) {
+            // No moves available - evaluate current position
+            return evaluateForSideToMove();
+        }
+        
+        // Score moves for ordering; each iteration picks the best remaining one, so
+        // after an early cutoff the rest of the list is never sorted
+        int[] scores = moveScores[ply];
+        long threatened = Attacks.computeAttacks(board, !currentRed);
+        scoreMoves(possibleMoves, moveCount, ply, hashMove, threatened);
+        
+        int bestEval = NEGATIVE_INFINITY;
+        int bestMove = Board.Move.NONE;
+        
+        for (int i = 0; i < moveCount; i++) {
+            pickMove(possibleMoves, scores, i, moveCount);
+            int move = possibleMoves[i];
+            boolean quiet = !Board.Move.isCapture(move) && move != hashMove
+                    && move != killerSlots[0] && move != killerSlots[1]
+                    && (goalRow & (1L << Board.Move.to(move))) == 0;
+            
+            if (futile && quiet && i > 0 && isFutile(move, depth, staticEval, alpha)) {
+                continue;
+            }
+            
+            // Apply the move in place
+            long undo = board.makeMove(move);
+            
+            // The first move is searched with the full window; later moves are expected to be
+            // worse, so a null window proves it cheaply and only a surprise gets a re-search.
+            // Late quiet moves are first searched a ply shallower (two for very late ones).
+            int eval;
+            if (i == 0) {
+                eval = -negamax(depth - 1, ply + 1, -beta, -alpha, pvNode, true);
+            } else {
+                int reduction = 0;
+                if (owner.lateMoveReductions && quiet && depth >= LMR_MIN_DEPTH && i >= LMR_FIRST_MOVE) {
+                    reduction = (i >= 2 * LMR_FIRST_MOVE && depth >= 2 * LMR_MIN_DEPTH) ? 2 : 1;
+                    if (pvNode) reduction--;
+                }
+                eval = -negamax(depth - 1 - reduction, ply + 1, -alpha - 1, -alpha, false, true);
+                if (reduction > 0 && eval > alpha) {
+                    eval = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha, false, true);
+                }
+                if (pvNode && eval > alpha && eval < beta) {
+                    eval = -negamax(depth - 1, ply + 1, -beta, -alpha, true, true);
+                }
+            }
+            board.unmakeMove(undo);
+            if (timeUp) return 0;
+            
+            if (eval > bestEval) {
+                bestEval = eval;
+                bestMove = move;
+                if (eval > alpha) {
+                    alpha = eval;
+                    
+                    // Alpha-beta pruning
+                    if (alpha >= beta) {
+                        stats.betaCutoffs[i]++;
+                        if (!Board.Move.isCapture(bestMove)) {
+                            recordQuietCutoff(bestMove, ply, depth, currentRed);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        
+        int bound = bestEval <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                  : bestEval >= beta ? TranspositionTable.LOWER_BOUND
+                  : TranspositionTable.EXACT;
+        owner.transpositionTable.store(key, depth, bound, scoreToTable(bestEval, ply), bestMove);
+        return bestEval;
+    }
+    
+    /**
+     * Quiescence search: extend a leaf through captures until the position is quiet, so
+     * no leaf is scored in the middle of an exchange. The side to move may always
+     * stand pat on the static evaluation instead of capturing.
+     * @return The evaluation score for the side to move
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        stats.quiescenceNodes++;
+        if ((++stats.nodes & CLOCK_CHECK_MASK) == 0) {
+            checkTime();
+        }
+        if (timeUp) {
+            return 0;
+        }
+        
+        Tablebase tablebase = owner.tablebase;
+        if (tablebase != null) {
+            int value = tablebase.probe(board);
+            if (value != Tablebase.UNKNOWN) {
+                return tablebaseScore(value, ply);
+            }
+        }
+        
+        int standPat = evaluateForSideToMove();
+        if (standPat >= beta || board.isGameOver() || ply >= MAX_PLY) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+        
+        boolean currentRed = board.isRedToMove();
+        int[] captures = moveBuffers[ply];
+        int captureCount = MoveGenerator.generateCaptures(board, currentRed, captures);
+        int[] scores = moveScores[ply];
+        scoreMoves(captures, captureCount, ply, Board.Move.NONE, 0L);
+        
+        int bestEval = standPat;
+        for (int i = 0; i < captureCount; i++) {
+            pickMove(captures, scores, i, captureCount);
+            int move = captures[i];
+            
+            // Delta pruning: skip captures that cannot lift the score to alpha even with
+            // a generous margin. Captures onto the goal row win the game and are kept.
+            int to = Board.Move.to(move);
+            long goalRow = currentRed ? Board.ROW_0 : Board.ROW_7;
+            if ((goalRow & (1L << to)) == 0 && standPat + moveGain(move) + DELTA_MARGIN <= alpha) {
+                continue;
+            }
+            
+            long undo = board.makeMove(move);
+            int eval = -quiesce(ply + 1, -beta, -alpha);
+            board.unmakeMove(undo);
+            if (timeUp) return 0;
+            
+            if (eval > bestEval) {
+                bestEval = eval;
+                if (eval > alpha) {
+                    alpha = eval;
+                    if (alpha >= beta) break;
+                }
+            }
+        }
+        return bestEval;
+    }
+    
+    /**
+     * Futility test for a quiet move near the leaves: even its gain plus a margin per
+     * remaining ply cannot lift the static evaluation to alpha
+     */
+    boolean isFutile(int move, int depth, int staticEval, int alpha) {
+        return staticEval + moveGain(move) + FUTILITY_MARGIN * depth <= alpha;
+    }
+    
+    /**
+     * Estimate how much a move raises the side to move's score: the change in the
+     * per-piece terms for the moving piece and for a pushed piece it drags along, plus
+     * the victim's material and per-piece terms for a capture
+     */
+    int moveGain(int move) {
+        int from = Board.Move.from(move);
+        int to = Board.Move.to(move);
+        int mover = board.getPiece(from >> 3, from & 7);
+        int squareGain = Board.getPieceSquareValue(rootRed, mover, to)
+                       - Board.getPieceSquareValue(rootRed, mover, from);
+        
+        // A pusher moving away from an own pushed piece directly behind it (on the line
+        // of the move) pulls that piece into the square it left, as Board.makeMove does
+        if (mover == Board.RED_PUSHER || mover == Board.BLACK_PUSHER) {
+            int behindRow = 2 * (from >> 3) - (to >> 3);
+            int behindCol = 2 * (from & 7) - (to & 7);
+            int follower = mover == Board.RED_PUSHER ? Board.RED_PUSHED : Board.BLACK_PUSHED;
+            if (board.getPiece(behindRow, behindCol) == follower) {
+                squareGain += Board.getPieceSquareValue(rootRed, follower, from)
+                            - Board.getPieceSquareValue(rootRed, follower, behindRow * 8 + behindCol);
+            }
+        }
+        int materialGain = 0;
+        if (Board.Move.isCapture(move)) {
+            int victim = board.getPiece(to >> 3, to & 7);
+            squareGain -= Board.getPieceSquareValue(rootRed, victim, to);
+            materialGain = BoardEvaluation.captureValue(victim);
+        }
+        int sign = board.isRedToMove() == rootRed ? 1 : -1;
+        return sign * squareGain + materialGain;
+    }
+    
+    /**
+     * Search score of a tablebase value for the side to move: wins that end sooner
+     * (counted from the root) score higher, losses that end later score higher.
+     * UNKNOWN, when neither side can force a win, scores as even.
+     */
+    private static int tablebaseScore(int value, int ply) {
+        if (value == Tablebase.UNKNOWN) {
+            return 0;
+        }
+        int score = TABLEBASE_WIN - ply - Tablebase.pliesToEnd(value);
+        return value > 0 ? score : -score;
+    }
+    
+    /**
+     * Tablebase scores count the plies to the end from the root. The table keeps them
+     * counted from the position itself, so an entry reached at another ply (through a
+     * transposition, or in the next search) still reports the right distance.
+     */
+    private static int scoreToTable(int score, int ply) {
+        if (score >= TABLEBASE_SCORE_MIN) return score + ply;
+        if (score <= -TABLEBASE_SCORE_MIN) return score - ply;
+        return score;
+    }
+    
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= TABLEBASE_SCORE_MIN) return score - ply;
+        if (score <= -TABLEBASE_SCORE_MIN) return score + ply;
+        return score;
+    }
+    
+    /**
+     * BoardEvaluation scores a position for one color. The search always evaluates for
+     * the root player and negates the score when the opponent is to move.
+     */
+    private int evaluateForSideToMove() {
+        int score = BoardEvaluation.evaluate(board, rootRed);
+        return board.isRedToMove() == rootRed ? score : -score;
+    }
+    
+    /**
+     * Give every move an ordering score: the hash move first, then captures by most
+     * valuable victim / least valuable attacker, then the two killers, then quiet moves
+     * by history, those onto a square the opponent can capture on last
+     * @param threatened The opponent's attacked squares (Attacks.computeAttacks)
+     */
+    private void scoreMoves(int[] moves, int count, int ply, int hashMove, long threatened) {
+        int[] scores = moveScores[ply];
+        int side = board.isRedToMove() ? 0 : 1;
+        int killer1 = killers[ply][0];
+        int killer2 = killers[ply][1];
+        
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = Board.Move.from(move);
+            int to = Board.Move.to(move);
+            if (move == hashMove) {
+                scores[i] = HASH_MOVE_SCORE;
+            } else if (Board.Move.isCapture(move)) {
+                int victim = pieceValue(board.getPiece(to >> 3, to & 7));
+                int attacker = pieceValue(board.getPiece(from >> 3, from & 7));
+                scores[i] = CAPTURE_SCORE + victim * 16 - attacker;
+            } else if (move == killer1) {
+                scores[i] = KILLER_SCORE + 1;
+            } else if (move == killer2) {
+                scores[i] = KILLER_SCORE;
+            } else {
+                scores[i] = history[side][from][to];
+                if ((threatened & (1L << to)) != 0) {
+                    scores[i] -= HISTORY_MAX; // Behind every quiet move the opponent cannot capture
+                }
+            }
+        }
+    }
+    
+    // Victim/attacker weight for MVV-LVA: pushers are worth more than pushed pieces
+    private static int pieceValue(int piece) {
+        return piece == Board.RED_PUSHER || piece == Board.BLACK_PUSHER ? 2 : 1;
+    }
+    
+    /**
+     * Swap the highest-scoring move among index..count-1 into position index
+     */
+    private void pickMove(int[] moves, int[] scores, int index, int count) {
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            int move = moves[best];
+            moves[best] = moves[index];
+            moves[index] = move;
+            int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+        }
+    }
+    
+    /**
+     * A quiet move caused a beta cutoff: remember it as a killer for this ply and
+     * reward it in the history table, more so the deeper the remaining search
+     */
+    private void recordQuietCutoff(int move, int ply, int depth, boolean isRed) {
+        int[] slots = killers[ply];
+        if (slots[0] != move) {
+            slots[1] = slots[0];
+            slots[0] = move;
+        }
+        
+        int[] row = history[isRed ? 0 : 1][Board.Move.from(move)];
+        int to = Board.Move.to(move);
+        row[to] += depth * depth;
+        if (row[to] >= HISTORY_MAX) {
+            ageHistory();
+        }
+    }
+    
+    private void ageHistory() {
+        for (int[][] side : history) {
+            for (int[] row : side) {
+                for (int to = 0; to < 64; to++) {
+                    row[to] >>= 1;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Rotate the list left by the given amount
+     */
+    private void rotate(int[] moves, int count, int amount) {
+        int[] scratch = moveScores[0];
+        System.arraycopy(moves, 0, scratch, 0, count);
+        for (int i = 0; i < count; i++) {
+            moves[i] = scratch[(i + amount) % count];
+        }
+    }
+    
+    /**
+     * Move the given move (if present) to the front of the list, keeping the rest in order
+     */
+    private void moveToFront(int[] moves, int count, int move) {
+        if (move == Board.Move.NONE) return;
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+}
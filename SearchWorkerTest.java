@@ -0,0 +1,62 @@
+/**
+ * Checks of SearchWorker's pruning estimates. Run with java SearchWorkerTest; any
+ * failure throws an AssertionError.
+ */
+public class SearchWorkerTest {
+    public static void main(String[] args) {
+        quietPushWithFollowerIsNotFutile();
+        System.out.println("SearchWorkerTest passed");
+    }
+
+    /**
+     * A red pusher on D6 steps to D7 and drags the pushed piece on D5 up to D6. The
+     * pushed piece's gain alone is worth more than the futility margin, so a futility
+     * test that only counted the pusher would prune a move that reaches alpha.
+     */
+    static void quietPushWithFollowerIsNotFutile() {
+        int[] squares = new int[64];
+        squares[6] = Board.BLACK_PUSHED;
+        squares[7] = Board.BLACK_PUSHER;
+        squares[19] = Board.RED_PUSHER; // D6
+        squares[27] = Board.RED_PUSHED; // D5
+        squares[56] = Board.RED_PUSHER;
+        StringBuilder position = new StringBuilder();
+        for (int piece : squares) {
+            position.append(piece).append(' ');
+        }
+        Board board = new Board();
+        board.parseBoardFromServer(position.toString().trim());
+        board.setRedToMove(true);
+
+        SearchWorker worker = new SearchWorker(new MiniMax(1), 0);
+        worker.prepare(board, true);
+        int move = Board.Move.encode(19, 11, 0);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generate(board, true, moves);
+        boolean legal = false;
+        for (int i = 0; i < count; i++) {
+            legal |= moves[i] == move;
+        }
+        check(legal, "D6D7 is generated");
+
+        int followerGain = Board.getPieceSquareValue(true, Board.RED_PUSHED, 19)
+                         - Board.getPieceSquareValue(true, Board.RED_PUSHED, 27);
+        int pusherGain = Board.getPieceSquareValue(true, Board.RED_PUSHER, 11)
+                       - Board.getPieceSquareValue(true, Board.RED_PUSHER, 19);
+        check(followerGain > SearchWorker.FUTILITY_MARGIN, "follower gain " + followerGain + " exceeds the margin");
+        check(worker.moveGain(move) == pusherGain + followerGain, "moveGain counts the follower");
+
+        // Alpha just below the score the move actually reaches
+        int staticEval = BoardEvaluation.evaluate(board, true);
+        board.makeMove(move);
+        int alpha = BoardEvaluation.evaluate(board, true) - 1;
+        check(staticEval + pusherGain + SearchWorker.FUTILITY_MARGIN <= alpha, "the pusher alone would look futile");
+        check(!worker.isFutile(move, 1, staticEval, alpha), "the push is searched");
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError(what);
+        }
+    }
+}
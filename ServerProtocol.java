@@ -0,0 +1,253 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The game server's protocol, read from a non-blocking SocketChannel.
+ *
+ * The server sends a one-byte command followed by its payload:
+ *   '1' new game, we play red:   the board, 64 one-digit piece codes (parseBoardFromServer)
+ *   '2' new game, we play black: the board
+ *   '3' our turn:                the opponent's last move
+ *   '4' our turn:                the opponent's last move (handled like '3', as before)
+ *   '5' move from the console:   the opponent's last move
+ * A move is two squares such as "D6 - D5"; anything between the four coordinates is
+ * skipped. Bytes are parsed as they arrive, so a command is handed to the listener as
+ * soon as its payload is complete, however the server's bytes were split across reads.
+ * The server may also send a move request without a move. Such a request is handed on
+ * with an empty move once the next command byte arrives, or once a read ends with no
+ * coordinate and nothing follows within EMPTY_MOVE_WAIT_MS.
+ *
+ * The channel is non-blocking and waited on with a Selector, unless it was opened with
+ * connectBlocking for a virtual thread, which a blocking read parks cheaply. There the
+ * timed wait reads through the socket's stream, whose reads honour SO_TIMEOUT.
+ */
+class ServerProtocol {
+    interface Listener {
+        /**
+         * @param board The board payload, normalized to digits separated by single spaces
+         */
+        void onNewGame(boolean red, byte[] board, int length) throws IOException;
+
+        void onMoveRequest(String opponentMove) throws IOException;
+
+        void onManualMoveRequest(String lastMove) throws IOException;
+    }
+
+    private static final int BOARD_DIGITS = 64;
+    private static final int MOVE_COORDINATES = 4;
+    private static final int READ_BUFFER_SIZE = 4096;
+    private static final long EMPTY_MOVE_WAIT_MS = 50; // For the rest of a move split across reads
+
+    private final SocketChannel channel;
+    private final Selector selector; // Null in blocking mode
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(64);
+    private byte[] waitBuffer; // Bytes of a timed wait in blocking mode, allocated on first use
+
+    // Parser state: the command being read (0 between commands) and its payload so far
+    private byte command;
+    private final byte[] payload = new byte[2 * BOARD_DIGITS];
+    private int payloadLength;
+    private int payloadUnits; // Board digits or move coordinates read so far
+
+    private ServerProtocol(SocketChannel channel, boolean blocking) throws IOException {
+        this.channel = channel;
+        if (blocking) {
+            this.selector = null;
+        } else {
+            this.selector = Selector.open();
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Connect to the server. Nagle's algorithm is turned off so a move goes out at once.
+     */
+    static ServerProtocol connect(String host, int port) throws IOException {
+        return open(host, port, false);
+    }
+
+    /**
+     * Connect with a blocking channel: run() then blocks in read instead of a Selector
+     */
+    static ServerProtocol connectBlocking(String host, int port) throws IOException {
+        return open(host, port, true);
+    }
+
+    private static ServerProtocol open(String host, int port, boolean blocking) throws IOException {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+        return new ServerProtocol(channel, blocking);
+    }
+
+    /**
+     * Read and dispatch commands until the server closes the connection
+     */
+    void run(Listener listener) throws IOException {
+        while (channel.isOpen()) {
+            // Bytes already in the buffer came in during a timed wait
+            if (readBuffer.position() == 0) {
+                if (selector != null) {
+                    selector.select();
+                    selector.selectedKeys().clear();
+                }
+
+                int read = channel.read(readBuffer);
+                if (read < 0) {
+                    close();
+                    return;
+                }
+            }
+            readBuffer.flip();
+            while (readBuffer.hasRemaining()) {
+                byte b = readBuffer.get();
+                if (startsNextCommand(b)) {
+                    dispatch(listener); // The move request before it came without a move
+                }
+                if (accept(b)) {
+                    dispatch(listener);
+                }
+            }
+            readBuffer.clear();
+
+            if (isMoveCommand(command) && payloadUnits == 0 && !moreBytesWithin(EMPTY_MOVE_WAIT_MS)) {
+                dispatch(listener);
+            }
+        }
+    }
+
+    /**
+     * Send a move in server format
+     * @throws IllegalArgumentException If the move does not fit the write buffer
+     */
+    void send(String move) throws IOException {
+        if (move.length() > writeBuffer.capacity()) {
+            throw new IllegalArgumentException("Move too long to send: " + move.length() + " chars");
+        }
+        writeBuffer.clear();
+        for (int i = 0; i < move.length(); i++) {
+            writeBuffer.put((byte) move.charAt(i));
+        }
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            if (channel.write(writeBuffer) == 0) {
+                Thread.onSpinWait(); // Socket buffer full, only possible if the server stops reading
+            }
+        }
+    }
+
+    void close() throws IOException {
+        if (selector != null) {
+            selector.close();
+        }
+        channel.close();
+    }
+
+    /**
+     * Feed one byte to the parser
+     * @return True if it completed a command
+     */
+    private boolean accept(byte b) {
+        switch (command) {
+            case 0:
+                if (b >= '1' && b <= '5') {
+                    command = b;
+                    payloadLength = 0;
+                    payloadUnits = 0;
+                    Log.debug("Received command: %c", (char) b);
+                }
+                return false;
+            case '1':
+            case '2':
+                if (b >= '0' && b <= '9') {
+                    if (payloadLength > 0) {
+                        payload[payloadLength++] = ' ';
+                    }
+                    payload[payloadLength++] = b;
+                    payloadUnits++;
+                }
+                return payloadUnits == BOARD_DIGITS;
+            default:
+                // Coordinates alternate between a file letter and a rank digit
+                boolean file = (payloadUnits & 1) == 0;
+                if (file && ((b >= 'A' && b <= 'H') || (b >= 'a' && b <= 'h'))) {
+                    payload[payloadLength++] = (byte) Character.toUpperCase(b);
+                    payloadUnits++;
+                } else if (!file && b >= '1' && b <= '8') {
+                    payload[payloadLength++] = b;
+                    payloadUnits++;
+                }
+                return payloadUnits == MOVE_COORDINATES;
+        }
+    }
+
+    /**
+     * Wait up to timeoutMs for more input. In blocking mode the bytes that arrive are
+     * put into readBuffer, for run() to parse without reading again.
+     * @return False if nothing arrived in time
+     */
+    private boolean moreBytesWithin(long timeoutMs) throws IOException {
+        if (selector != null) {
+            if (selector.select(timeoutMs) == 0) {
+                return false;
+            }
+            selector.selectedKeys().clear();
+            return true;
+        }
+
+        // The channel's own read would block for good, so read through the socket's stream
+        Socket socket = channel.socket();
+        if (waitBuffer == null) {
+            waitBuffer = new byte[READ_BUFFER_SIZE];
+        }
+        socket.setSoTimeout((int) timeoutMs);
+        try {
+            int read = socket.getInputStream().read(waitBuffer);
+            if (read > 0) {
+                readBuffer.put(waitBuffer, 0, read);
+            }
+            return true; // At the end of the stream the next channel read returns -1 as well
+        } catch (SocketTimeoutException e) {
+            return false;
+        } finally {
+            socket.setSoTimeout(0);
+        }
+    }
+
+    private static boolean isMoveCommand(byte command) {
+        return command >= '3' && command <= '5';
+    }
+
+    // A command byte where a move request expects a file letter ends that request early
+    private boolean startsNextCommand(byte b) {
+        return isMoveCommand(command) && (payloadUnits & 1) == 0 && b >= '1' && b <= '5';
+    }
+
+    private void dispatch(Listener listener) throws IOException {
+        byte completed = command;
+        command = 0;
+        if (isMoveCommand(completed) && payloadUnits < MOVE_COORDINATES) {
+            payloadLength = 0; // No move, or only half of one
+        }
+        switch (completed) {
+            case '1':
+            case '2':
+                listener.onNewGame(completed == '1', payload, payloadLength);
+                break;
+            case '5':
+                listener.onManualMoveRequest(new String(payload, 0, payloadLength, StandardCharsets.US_ASCII));
+                break;
+            default:
+                listener.onMoveRequest(new String(payload, 0, payloadLength, StandardCharsets.US_ASCII));
+                break;
+        }
+    }
+}
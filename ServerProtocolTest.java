@@ -0,0 +1,79 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks of ServerProtocol's parser against a loopback server. Run with
+ * java ServerProtocolTest; any failure throws an AssertionError.
+ */
+public class ServerProtocolTest {
+    public static void main(String[] args) throws Exception {
+        for (boolean blocking : new boolean[] { false, true }) {
+            // A move request without a move, ended by the next command in the same read
+            check(blocking, Arrays.asList("", "D6D5"), "43D6 - D5");
+            // ... or by the read ending, the next command arriving much later
+            check(blocking, Arrays.asList("", "D6D5"), "4", 200, "3D6 - D5");
+            check(blocking, Arrays.asList("", "", "C2C3"), "4", "5", 200, "4C2 - C3");
+            // A move split across reads is still one move
+            check(blocking, Arrays.asList("D6D5"), "3", 10, "D6 - D5");
+            check(blocking, Arrays.asList("C2C3"), "5", 10, "C2 - C3");
+        }
+        System.out.println("ServerProtocolTest passed");
+    }
+
+    /**
+     * Serve the messages (a number pauses that many milliseconds, a string is written as
+     * is) to a ServerProtocol and compare the moves handed to the listener
+     */
+    private static void check(boolean blocking, List<String> expected, Object... messages) throws Exception {
+        List<String> moves = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Thread serving = new Thread(() -> {
+                try (Socket socket = server.accept()) {
+                    OutputStream out = socket.getOutputStream();
+                    for (Object message : messages) {
+                        if (message instanceof Integer) {
+                            Thread.sleep((Integer) message);
+                        } else {
+                            out.write(((String) message).getBytes(StandardCharsets.US_ASCII));
+                            out.flush();
+                        }
+                    }
+                } catch (IOException | InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            serving.start();
+
+            String host = InetAddress.getLoopbackAddress().getHostAddress();
+            ServerProtocol protocol = blocking ? ServerProtocol.connectBlocking(host, server.getLocalPort())
+                                               : ServerProtocol.connect(host, server.getLocalPort());
+            protocol.run(new ServerProtocol.Listener() {
+                @Override
+                public void onNewGame(boolean red, byte[] board, int length) {
+                }
+
+                @Override
+                public void onMoveRequest(String opponentMove) {
+                    moves.add(opponentMove);
+                }
+
+                @Override
+                public void onManualMoveRequest(String lastMove) {
+                    moves.add(lastMove);
+                }
+            });
+            serving.join();
+        }
+        if (!moves.equals(expected)) {
+            throw new AssertionError((blocking ? "blocking" : "selector") + " reader, messages "
+                    + Arrays.toString(messages) + ": expected " + expected + ", got " + moves);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Endgame tablebases: the exact result and distance to the end of every position with
+ * at most a few pieces per side, found by retrograde analysis.
+ *
+ * Every move advances a piece towards its goal row, so no position can repeat and the
+ * positions of a material balance can be solved backwards in one sweep: from the most
+ * advanced positions (where the game is decided) down to the least advanced. Each
+ * position's moves lead either to a more advanced position of the same table or,
+ * after a capture, into a smaller table that was solved earlier.
+ *
+ * A value is one signed byte for the side to move: v > 0 wins in v - 1 plies, v < 0
+ * loses in -v - 1 plies, and 0 means neither side can force a win (or the position is
+ * not covered). A side with no legal moves is scored 0, since its outcome is not
+ * decided by the rules in Board.
+ *
+ * File format (big-endian): the int MAGIC, the pieces-per-side limit, the number of
+ * tables, then one directory entry per table (int material code, long offset, int
+ * size) and the table data. Each table holds one byte per index (see index()).
+ *
+ * Usage: java Tablebase build [file] [pieces-per-side]
+ */
+public class Tablebase {
+    public static final String DEFAULT_FILE = "endgame.tb";
+    public static final int UNKNOWN = 0;
+    public static final int MAX_PIECES_PER_SIDE = 2; // Three per side would need several GB
+
+    private static final int MAGIC = 0x50544231; // "PTB1"
+    private static final int HEADER_BYTES = 12;
+    private static final int DIRECTORY_ENTRY_BYTES = 16;
+
+    // Piece types in the order they are indexed
+    private static final int[] GROUP_PIECES = { Board.RED_PUSHER, Board.RED_PUSHED, Board.BLACK_PUSHER, Board.BLACK_PUSHED };
+
+    // BINOMIAL[n][k] = n choose k, for the combinatorial index of same-type pieces
+    private static final int[][] BINOMIAL = new int[65][MAX_PIECES_PER_SIDE + 1];
+
+    static {
+        for (int n = 0; n <= 64; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= MAX_PIECES_PER_SIDE; k++) {
+                BINOMIAL[n][k] = n == 0 ? 0 : BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+            }
+        }
+    }
+
+    private final int piecesPerSide;
+    private final ByteBuffer[] tables; // Indexed by material code, null where not stored
+
+    private Tablebase(int piecesPerSide) {
+        this.piecesPerSide = piecesPerSide;
+        int radix = piecesPerSide + 1;
+        this.tables = new ByteBuffer[radix * radix * radix * radix];
+    }
+
+    /**
+     * Map a tablebase file into memory
+     * @return The tablebase, or null if the file does not exist or is not a tablebase
+     */
+    public static Tablebase load(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int piecesPerSide = buffer.limit() >= HEADER_BYTES ? buffer.getInt(4) : 0;
+            if (buffer.getInt(0) != MAGIC || piecesPerSide < 1 || piecesPerSide > MAX_PIECES_PER_SIDE) {
+                Log.warn("Not a tablebase: %s", file);
+                return null;
+            }
+
+            Tablebase tablebase = new Tablebase(piecesPerSide);
+            int tableCount = buffer.getInt(8);
+            for (int t = 0; t < tableCount; t++) {
+                int entry = HEADER_BYTES + t * DIRECTORY_ENTRY_BYTES;
+                int code = buffer.getInt(entry);
+                long offset = buffer.getLong(entry + 4);
+                int size = buffer.getInt(entry + 12);
+                if (code < 0 || code >= tablebase.tables.length || offset + size > buffer.limit()) {
+                    Log.warn("Corrupt tablebase: %s", file);
+                    return null;
+                }
+                tablebase.tables[code] = buffer.slice((int) offset, size);
+            }
+            return tablebase;
+        } catch (IOException e) {
+            Log.warn("Could not load tablebase %s: %s", file, e.getMessage());
+            return null;
+        }
+    }
+
+    public int getPiecesPerSide() {
+        return piecesPerSide;
+    }
+
+    /**
+     * Look up the position for the side to move. Finished games are scored directly.
+     * @return The stored value (see the class comment), or UNKNOWN if not covered
+     */
+    public int probe(Board board) {
+        if (Long.bitCount(board.getRedPieces()) > piecesPerSide
+                || Long.bitCount(board.getBlackPieces()) > piecesPerSide) {
+            return UNKNOWN;
+        }
+        if (board.isGameOver()) {
+            // The side to move has lost unless the game ended in its favour
+            boolean redWon = "Red".equals(board.getWinner());
+            return redWon == board.isRedToMove() ? 1 : -1;
+        }
+        ByteBuffer table = tables[materialCode(board)];
+        return table == null ? UNKNOWN : table.get(index(board));
+    }
+
+    /**
+     * Plies until the game ends with best play, for a value other than UNKNOWN
+     */
+    public static int pliesToEnd(int value) {
+        return Math.abs(value) - 1;
+    }
+
+    // Material code: the count of each piece type as digits in base piecesPerSide + 1
+    private int materialCode(Board board) {
+        int code = 0;
+        for (int piece : GROUP_PIECES) {
+            code = code * (piecesPerSide + 1) + board.getPieceCount(piece);
+        }
+        return code;
+    }
+
+    // Position index: each piece type's squares as one combination index, then the side to move
+    private int index(Board board) {
+        int index = 0;
+        for (int piece : GROUP_PIECES) {
+            long bits = board.getBitboard(piece);
+            index = index * BINOMIAL[64][Long.bitCount(bits)] + combinationIndex(bits);
+        }
+        return index * 2 + (board.isRedToMove() ? 0 : 1);
+    }
+
+    // Rank of a set of squares among all sets of the same size (combinatorial number system)
+    private static int combinationIndex(long bits) {
+        int rank = 0;
+        for (int k = 1; bits != 0; bits &= bits - 1, k++) {
+            rank += BINOMIAL[Long.numberOfTrailingZeros(bits)][k];
+        }
+        return rank;
+    }
+
+    /**
+     * Solve every material balance with 1 to piecesPerSide pieces per side, at least one
+     * of them a pusher (otherwise the game is already over), smallest first
+     */
+    public static Tablebase generate(int piecesPerSide) {
+        Tablebase tablebase = new Tablebase(piecesPerSide);
+        for (int total = 2; total <= 2 * piecesPerSide; total++) {
+            for (int code = 0; code < tablebase.tables.length; code++) {
+                int[] counts = tablebase.counts(code);
+                int red = counts[0] + counts[1];
+                int black = counts[2] + counts[3];
+                if (red + black == total && red <= piecesPerSide && black <= piecesPerSide
+                        && counts[0] > 0 && counts[2] > 0) {
+                    long start = System.currentTimeMillis();
+                    tablebase.solve(code, counts);
+                    System.out.println("solved " + describe(counts) + " (" + tablebase.tables[code].capacity()
+                            + " positions) in " + (System.currentTimeMillis() - start) + " ms");
+                }
+            }
+        }
+        return tablebase;
+    }
+
+    private int[] counts(int code) {
+        int[] counts = new int[GROUP_PIECES.length];
+        for (int g = GROUP_PIECES.length - 1; g >= 0; g--) {
+            counts[g] = code % (piecesPerSide + 1);
+            code /= piecesPerSide + 1;
+        }
+        return counts;
+    }
+
+    private static String describe(int[] counts) {
+        return "red " + counts[0] + "+" + counts[1] + " vs black " + counts[2] + "+" + counts[3];
+    }
+
+    // Fill one table, most advanced positions first so every child is already solved
+    private void solve(int code, int[] counts) {
+        int groups = GROUP_PIECES.length;
+        long[][] groupBits = new long[groups][];
+        int[][] groupAdvance = new int[groups][];
+        int[] groupSize = new int[groups];
+        int maxAdvance = 0;
+        for (int g = 0; g < groups; g++) {
+            groupSize[g] = BINOMIAL[64][counts[g]];
+            groupBits[g] = new long[groupSize[g]];
+            groupAdvance[g] = new int[groupSize[g]];
+            enumerate(groupBits[g], groupAdvance[g], counts[g], GROUP_PIECES[g] >= Board.RED_PUSHED);
+            maxAdvance += 7 * counts[g];
+        }
+
+        int positions = groupSize[0] * groupSize[1] * groupSize[2] * groupSize[3];
+        ByteBuffer table = ByteBuffer.allocate(positions * 2);
+        tables[code] = table;
+
+        Board board = new Board();
+        long[] pieces = new long[Board.RED_PUSHER + 1];
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int pieceCount = counts[0] + counts[1] + counts[2] + counts[3];
+
+        for (int advance = maxAdvance; advance >= 0; advance--) {
+            for (int position = 0; position < positions; position++) {
+                // Split the index back into one combination per piece type
+                int rest = position;
+                int positionAdvance = 0;
+                long occupied = 0L;
+                for (int g = groups - 1; g >= 0; g--) {
+                    int combination = rest % groupSize[g];
+                    rest /= groupSize[g];
+                    pieces[GROUP_PIECES[g]] = groupBits[g][combination];
+                    occupied |= groupBits[g][combination];
+                    positionAdvance += groupAdvance[g][combination];
+                }
+                if (positionAdvance != advance || Long.bitCount(occupied) != pieceCount) {
+                    continue;
+                }
+
+                for (int side = 0; side < 2; side++) {
+                    board.setPosition(pieces, side == 0);
+                    table.put(position * 2 + side, (byte) solvePosition(board, moves));
+                }
+            }
+        }
+    }
+
+    // Best value over all moves: the fastest win, else a draw, else the slowest loss
+    private int solvePosition(Board board, int[] moves) {
+        if (board.isGameOver()) {
+            return probe(board);
+        }
+        int count = MoveGenerator.generate(board, board.isRedToMove(), moves);
+        int fastestWin = Integer.MAX_VALUE;
+        int slowestLoss = -1;
+        boolean draw = count == 0;
+        for (int i = 0; i < count; i++) {
+            long undo = board.makeMove(moves[i]);
+            int child = probe(board);
+            board.unmakeMove(undo);
+            if (child < 0) {
+                fastestWin = Math.min(fastestWin, pliesToEnd(child) + 1);
+            } else if (child == UNKNOWN) {
+                draw = true;
+            } else {
+                slowestLoss = Math.max(slowestLoss, pliesToEnd(child) + 1);
+            }
+        }
+        if (fastestWin != Integer.MAX_VALUE) return fastestWin + 1;
+        if (draw) return UNKNOWN;
+        return -(slowestLoss + 1);
+    }
+
+    // All sets of k squares in combinationIndex order, with their total advancement
+    private static void enumerate(long[] bits, int[] advance, int k, boolean red) {
+        int[] squares = new int[k];
+        for (int i = 0; i < k; i++) {
+            squares[i] = i;
+        }
+        for (int rank = 0; rank < bits.length; rank++) {
+            long set = 0L;
+            int total = 0;
+            for (int square : squares) {
+                set |= 1L << square;
+                total += red ? 7 - (square >> 3) : square >> 3;
+            }
+            int index = combinationIndex(set);
+            bits[index] = set;
+            advance[index] = total;
+
+            // Next combination in lexicographic order
+            int i = k - 1;
+            while (i >= 0 && squares[i] == 64 - k + i) i--;
+            if (i < 0) break;
+            squares[i]++;
+            for (int j = i + 1; j < k; j++) {
+                squares[j] = squares[j - 1] + 1;
+            }
+        }
+    }
+
+    /**
+     * Write the solved tables in the format load reads
+     */
+    public void write(Path file) throws IOException {
+        int tableCount = 0;
+        for (ByteBuffer table : tables) {
+            if (table != null) tableCount++;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(piecesPerSide);
+            out.writeInt(tableCount);
+            long offset = HEADER_BYTES + (long) tableCount * DIRECTORY_ENTRY_BYTES;
+            for (int code = 0; code < tables.length; code++) {
+                if (tables[code] == null) continue;
+                out.writeInt(code);
+                out.writeLong(offset);
+                out.writeInt(tables[code].capacity());
+                offset += tables[code].capacity();
+            }
+            for (ByteBuffer table : tables) {
+                if (table != null) out.write(table.array());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || !args[0].equals("build")) {
+            System.err.println("Usage: java Tablebase build [file] [pieces-per-side]");
+            System.exit(2);
+        }
+        Path file = Paths.get(args.length > 1 ? args[1] : DEFAULT_FILE);
+        int piecesPerSide = args.length > 2 ? Integer.parseInt(args[2]) : MAX_PIECES_PER_SIDE;
+        if (piecesPerSide < 1 || piecesPerSide > MAX_PIECES_PER_SIDE) {
+            System.err.println("Pieces per side must be between 1 and " + MAX_PIECES_PER_SIDE);
+            System.exit(2);
+        }
+        generate(piecesPerSide).write(file);
+        System.out.println("Wrote " + file);
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Splits the remaining game time into per-move budgets for MiniMax.
+ *
+ * Each move gets a soft limit (do not start another iteration past it) and a hard
+ * limit (abort the search). Both are capped by the server's per-move limit minus a
+ * safety margin for network and GC delays.
+ */
+public class TimeManager {
+    public static final long DEFAULT_MOVE_LIMIT_MS = 1000;
+    public static final long UNLIMITED_GAME_TIME = Long.MAX_VALUE;
+
+    private static final long SAFETY_MARGIN_MS = 100;
+    private static final int EXPECTED_GAME_LENGTH = 60; // Our moves in a typical game
+    private static final int MIN_MOVES_TO_GO = 10;
+    private static final double DEFAULT_BRANCHING_FACTOR = 4.0;
+
+    private final long gameTimeMs;
+    private final long moveLimitMs;
+    private long remainingMs;
+    private int moveNumber;
+
+    private long moveStart;
+    private long softLimit;
+    private long hardLimit;
+
+    public TimeManager() {
+        this(UNLIMITED_GAME_TIME, DEFAULT_MOVE_LIMIT_MS);
+    }
+
+    /**
+     * @param gameTimeMs Total clock time we have for the whole game
+     * @param moveLimitMs Longest the server allows for a single move
+     */
+    public TimeManager(long gameTimeMs, long moveLimitMs) {
+        this.gameTimeMs = gameTimeMs;
+        this.moveLimitMs = moveLimitMs;
+        newGame();
+    }
+
+    public void newGame() {
+        remainingMs = gameTimeMs;
+        moveNumber = 0;
+    }
+
+    /**
+     * Start the clock for one of our moves and compute its budget
+     */
+    public void startMove() {
+        startMove(System.currentTimeMillis(), Long.MAX_VALUE);
+    }
+
+    /**
+     * Start the clock for a move whose request arrived earlier, e.g. one that waited for
+     * a search thread, and spend at most maxMoveMs of it (counted from the request)
+     */
+    public void startMove(long requestTimeMs, long maxMoveMs) {
+        moveStart = requestTimeMs;
+
+        long cap = Math.max(1, Math.min(maxMoveMs, moveLimitMs - SAFETY_MARGIN_MS));
+        if (remainingMs == UNLIMITED_GAME_TIME) {
+            softLimit = cap;
+            hardLimit = cap;
+            return;
+        }
+
+        // Spend more time in the opening and middle game, less once the game drags on
+        int movesToGo = Math.max(MIN_MOVES_TO_GO, EXPECTED_GAME_LENGTH - moveNumber);
+        long available = Math.max(1, remainingMs - SAFETY_MARGIN_MS);
+        softLimit = Math.min(cap, Math.max(1, available / movesToGo));
+        hardLimit = Math.min(cap, Math.max(softLimit, available / 4));
+    }
+
+    /**
+     * Stop the clock for the current move and charge it against the game time
+     */
+    public void endMove() {
+        if (remainingMs != UNLIMITED_GAME_TIME) {
+            remainingMs = Math.max(0, remainingMs - elapsed());
+        }
+        moveNumber++;
+    }
+
+    /**
+     * Latest time the reply to a move requested at requestTimeMs may reach the server:
+     * the per-move limit, or the end of the game clock if that comes first
+     */
+    public long getDeadline(long requestTimeMs) {
+        return requestTimeMs + Math.min(moveLimitMs, remainingMs);
+    }
+
+    public long elapsed() {
+        return System.currentTimeMillis() - moveStart;
+    }
+
+    public boolean hardLimitReached() {
+        return elapsed() >= hardLimit;
+    }
+
+    /**
+     * Decide at an iteration boundary whether the next, deeper iteration can finish
+     * within the soft limit
+     * @param lastIterationMs Time taken by the iteration that just completed
+     * @param previousIterationMs Time taken by the one before it, or 0 if none
+     */
+    public boolean canStartIteration(long lastIterationMs, long previousIterationMs) {
+        double growth = DEFAULT_BRANCHING_FACTOR;
+        if (previousIterationMs > 0 && lastIterationMs > 0) {
+            growth = Math.max(2.0, Math.min(8.0, (double) lastIterationMs / previousIterationMs));
+        }
+        long predicted = (long) (Math.max(1, lastIterationMs) * growth);
+        return elapsed() + predicted <= softLimit;
+    }
+
+    public long getSoftLimit() {
+        return softLimit;
+    }
+
+    public long getHardLimit() {
+        return hardLimit;
+    }
+
+    public int getMoveNumber() {
+        return moveNumber;
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Fixed-size transposition table for MiniMax, stored in a primitive long[] array.
+ * Each entry takes two longs: the Zobrist key XOR the data word, then the data word.
+ * Storing the key that way lets a probe detect an entry that was only half written.
+ */
+public class TranspositionTable {
+    // Bound types stored with each score
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2; // Score failed high, true value is at least score
+    public static final int UPPER_BOUND = 3; // Score failed low, true value is at most score
+
+    private static final int BYTES_PER_ENTRY = 16;
+
+    private final long[] table;
+    private final int mask;
+
+    /**
+     * @param sizeMb Table size in megabytes, rounded down to a power-of-two entry count
+     */
+    public TranspositionTable(int sizeMb) {
+        long entries = Math.max(1L, (long) sizeMb * 1024 * 1024 / BYTES_PER_ENTRY);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 28));
+        table = new long[size * 2];
+        mask = size - 1;
+    }
+
+    /**
+     * Look up a position
+     * @return The packed data word for the key, or 0 if the position is not stored
+     */
+    public long probe(long key) {
+        int index = ((int) key & mask) << 1;
+        long data = table[index + 1];
+        return (table[index] ^ data) == key ? data : 0L;
+    }
+
+    /**
+     * Store a search result. An existing entry for the same position is only
+     * replaced by a search that went at least as deep.
+     */
+    public void store(long key, int depth, int bound, int score, int bestMove) {
+        int index = ((int) key & mask) << 1;
+        long oldData = table[index + 1];
+        if ((table[index] ^ oldData) == key && depth < depthOf(oldData)) {
+            return;
+        }
+
+        long data = (bestMove & 0x3FFFL)
+                  | ((long) (depth & 0xFF) << 14)
+                  | ((long) bound << 22)
+                  | ((long) score << 32);
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(table, 0L);
+    }
+
+    // Accessors for the packed data word returned by probe
+    public static int moveOf(long data) {
+        return (int) (data & 0x3FFF);
+    }
+
+    public static int depthOf(long data) {
+        return (int) ((data >>> 14) & 0xFF);
+    }
+
+    public static int boundOf(long data) {
+        return (int) ((data >>> 22) & 3);
+    }
+
+    public static int scoreOf(long data) {
+        return (int) (data >>> 32);
+    }
+}